@@ -0,0 +1,43 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static eu.dissco.virtualcollectionservice.utils.BenchmarkUtils.givenFilter;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElasticSearchQueryParserBenchmark {
+
+  @Param({"EQUALS", "EQUALS_LIST", "IN", "NOT", "OR", "AND"})
+  private String predicateShape;
+
+  private TargetDigitalObjectFilter filter;
+
+  @Setup
+  public void setUp() {
+    filter = givenFilter(predicateShape);
+  }
+
+  @Benchmark
+  public Query parseTargetFilterToQuery() {
+    return ElasticSearchQueryParser.parseTargetFilterToQuery(filter);
+  }
+
+}
@@ -0,0 +1,83 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEvent;
+
+import eu.dissco.virtualcollectionservice.property.CompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Compresses payloads built from the serialized specimen event fixture, larger payloads repeat the
+ * event. The size threshold is disabled so every payload is compressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCompressionComponentBenchmark {
+
+  @Param({"gzip", "zstd", "lz4"})
+  private String contentEncoding;
+
+  @Param({"256", "4096", "65536", "1048576"})
+  private int payloadSize;
+
+  private MessageCompressionComponent component;
+  private byte[] payload;
+  private Message compressedMessage;
+
+  @Setup
+  public void setUp() throws IOException {
+    var properties = new CompressionProperties();
+    properties.setContentEncoding(contentEncoding);
+    properties.setMinSize(0);
+    component = new MessageCompressionComponent(
+        List.of(new GzipCompressionCodec(), new ZstdCompressionCodec(), new Lz4CompressionCodec()),
+        properties, new SimpleMeterRegistry());
+    var event = MAPPER.writeValueAsBytes(givenDigitalSpecimenEvent());
+    payload = new byte[payloadSize];
+    for (int offset = 0; offset < payloadSize; offset += event.length) {
+      System.arraycopy(event, 0, payload, offset, Math.min(event.length, payloadSize - offset));
+    }
+    compressedMessage = component.toMessage(payload, new MessageProperties());
+  }
+
+  @Benchmark
+  public Message compress() {
+    return component.toMessage(payload, new MessageProperties());
+  }
+
+  @Benchmark
+  public byte[] decompress() throws IOException {
+    try (var body = component.getBodyStream(compressedMessage)) {
+      return body.readAllBytes();
+    }
+  }
+
+  @Benchmark
+  public byte[] roundTrip() throws IOException {
+    var message = component.toMessage(payload, new MessageProperties());
+    try (var body = component.getBodyStream(message)) {
+      return body.readAllBytes();
+    }
+  }
+
+}
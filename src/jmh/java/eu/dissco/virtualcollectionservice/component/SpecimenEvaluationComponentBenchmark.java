@@ -0,0 +1,105 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static eu.dissco.virtualcollectionservice.component.SpecimenFilterCompiler.compileFilter;
+import static eu.dissco.virtualcollectionservice.utils.BenchmarkUtils.givenFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimen;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jayway.jsonpath.DocumentContext;
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
+import eu.dissco.virtualcollectionservice.property.CacheProperties;
+import eu.dissco.virtualcollectionservice.property.QuarantineProperties;
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Evaluates a specimen against a number of virtual collections that share a predicate shape. Every
+ * collection matches the specimen, which is the worst case for the evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecimenEvaluationComponentBenchmark {
+
+  @Param({"1", "100", "1000"})
+  private int collectionCount;
+
+  @Param({"EQUALS", "EQUALS_LIST", "IN", "NOT", "OR", "AND"})
+  private String predicateShape;
+
+  private SpecimenEvaluationComponent component;
+  private DigitalSpecimen specimen;
+  private DocumentContext document;
+  private List<TargetDigitalObjectFilter> filters;
+  private VirtualCollectionIndex index;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    var meterRegistry = new SimpleMeterRegistry();
+    // The cache is only used to quarantine failing filters, it is never filled from the repository
+    var cache = new VirtualCollectionCacheComponent(null, new CacheProperties(), meterRegistry);
+    component = new SpecimenEvaluationComponent(MAPPER, cache, new QuarantineProperties(),
+        meterRegistry);
+    specimen = givenDigitalSpecimen();
+    document = component.parseSpecimen(specimen);
+    filters = new ArrayList<>(collectionCount);
+    var virtualCollections = new ArrayList<CompiledVirtualCollection>(collectionCount);
+    for (int i = 0; i < collectionCount; i++) {
+      var filter = givenFilter(predicateShape);
+      var virtualCollection = givenVirtualCollection("https://hdl.handle.net/TEST/" + i,
+          "Collection " + i).withOdsHasTargetDigitalObjectFilter(filter);
+      filters.add(filter);
+      virtualCollections.add(new CompiledVirtualCollection(virtualCollection,
+          compileFilter(filter)));
+    }
+    index = VirtualCollectionIndex.of(virtualCollections);
+  }
+
+  /**
+   * Compiles and evaluates every filter against a freshly parsed specimen.
+   */
+  @Benchmark
+  public void evaluateSpecimen(Blackhole blackhole) throws JsonProcessingException {
+    for (var filter : filters) {
+      blackhole.consume(compileFilter(filter).matches(component.parseSpecimen(specimen)));
+    }
+  }
+
+  /**
+   * Parses the specimen once and evaluates the candidates of the precompiled index.
+   */
+  @Benchmark
+  public List<VirtualCollection> parseAndFindMatchingVirtualCollections()
+      throws JsonProcessingException {
+    return component.findMatchingVirtualCollections(component.parseSpecimen(specimen), index);
+  }
+
+  @Benchmark
+  public List<VirtualCollection> findMatchingVirtualCollections() {
+    return component.findMatchingVirtualCollections(document, index);
+  }
+
+}
@@ -0,0 +1,53 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEvent;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deserialization of an ingestion event, from a String as before and from the body stream as the
+ * consumer does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigitalSpecimenEventBenchmark {
+
+  private final ObjectReader reader = MAPPER.readerFor(DigitalSpecimenEvent.class);
+  private String eventString;
+  private byte[] eventBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    eventString = MAPPER.writeValueAsString(givenDigitalSpecimenEvent());
+    eventBytes = MAPPER.writeValueAsBytes(givenDigitalSpecimenEvent());
+  }
+
+  @Benchmark
+  public DigitalSpecimenEvent deserializeFromString() throws IOException {
+    return MAPPER.readValue(eventString, DigitalSpecimenEvent.class);
+  }
+
+  @Benchmark
+  public DigitalSpecimenEvent deserializeFromStream() throws IOException {
+    return reader.readValue(new ByteArrayInputStream(eventBytes));
+  }
+
+}
@@ -0,0 +1,64 @@
+package eu.dissco.virtualcollectionservice.service;
+
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimen;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.dissco.virtualcollectionservice.property.ApplicationProperties;
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import eu.dissco.virtualcollectionservice.schema.EntityRelationship;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adds the relationship to a specimen that already has a number of other virtual collections, the
+ * relationship is removed again so every invocation starts from the same specimen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AbstractProcessingServiceBenchmark {
+
+  private static final String VIRTUAL_COLLECTION_ID = "https://hdl.handle.net/TEST/BENCHMARK";
+  private static final URI VIRTUAL_COLLECTION_URI = URI.create(VIRTUAL_COLLECTION_ID);
+
+  @Param({"0", "10", "100"})
+  private int existingRelationships;
+
+  private AbstractProcessingService processingService;
+  private DigitalSpecimen specimen;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    processingService = new AbstractProcessingService(MAPPER, new ApplicationProperties());
+    specimen = givenDigitalSpecimen();
+    for (int i = 0; i < existingRelationships; i++) {
+      specimen.getOdsHasEntityRelationships().add(new EntityRelationship()
+          .withType("ods:EntityRelationship")
+          .withDwcRelationshipOfResource("hasVirtualCollection")
+          .withDwcRelatedResourceID("https://hdl.handle.net/TEST/" + i));
+    }
+  }
+
+  @Benchmark
+  public boolean addVirtualCollection() {
+    processingService.addVirtualCollection(specimen, VIRTUAL_COLLECTION_ID,
+        VIRTUAL_COLLECTION_URI);
+    return processingService.removeVirtualCollection(specimen, VIRTUAL_COLLECTION_ID);
+  }
+
+}
@@ -0,0 +1,32 @@
+package eu.dissco.virtualcollectionservice.utils;
+
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenAndFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenEqualsListFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenInFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenNotFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenOrFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenTargetDigitalObjectFilter;
+
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+
+public class BenchmarkUtils {
+
+  private BenchmarkUtils() {
+  }
+
+  /**
+   * Maps the predicate shape benchmark parameter to the matching filter fixture of TestUtils.
+   */
+  public static TargetDigitalObjectFilter givenFilter(String predicateShape) {
+    return switch (predicateShape) {
+      case "EQUALS" -> givenTargetDigitalObjectFilter();
+      case "EQUALS_LIST" -> givenEqualsListFilter();
+      case "IN" -> givenInFilter();
+      case "NOT" -> givenNotFilter();
+      case "OR" -> givenOrFilter();
+      case "AND" -> givenAndFilter();
+      default -> throw new IllegalArgumentException("Unknown predicate shape: " + predicateShape);
+    };
+  }
+
+}
@@ -0,0 +1,65 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import eu.dissco.virtualcollectionservice.domain.BackfillProgress;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the progress and the estimated remaining time of running backfills as gauges, the
+ * gauges are removed when the backfill finishes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackfillProgressComponent {
+
+  private static final String PROGRESS_METRIC = "backfill.progress";
+  private static final String REMAINING_METRIC = "backfill.remaining";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<BackfillProgress, List<Gauge>> gauges = new ConcurrentHashMap<>();
+
+  public BackfillProgress start(String virtualCollectionId, VirtualCollectionAction action,
+      long total, long processed) {
+    var progress = new BackfillProgress(virtualCollectionId, action, total, processed,
+        System.nanoTime());
+    var tags = Tags.of("virtualCollection", virtualCollectionId, "action", action.name());
+    gauges.put(progress, List.of(
+        Gauge.builder(PROGRESS_METRIC, progress, BackfillProgress::getProgress)
+            .description("Fraction of the matching specimens processed by the backfill")
+            .tags(tags)
+            .register(meterRegistry),
+        Gauge.builder(REMAINING_METRIC, progress,
+                p -> p.getEstimatedSecondsRemaining(System.nanoTime()))
+            .description("Estimated remaining time of the backfill")
+            .baseUnit("seconds")
+            .tags(tags)
+            .register(meterRegistry)));
+    log.info("Started backfill for virtual collection: {} with {} matching specimens",
+        virtualCollectionId, total);
+    return progress;
+  }
+
+  public void update(BackfillProgress progress, long results) {
+    var processed = progress.addProcessed(results);
+    log.info("Backfill for virtual collection: {} processed {} of {}, estimated remaining: {}s",
+        progress.getVirtualCollectionId(), processed, progress.getTotal(),
+        Math.round(progress.getEstimatedSecondsRemaining(System.nanoTime())));
+  }
+
+  public void finish(BackfillProgress progress) {
+    var progressGauges = gauges.remove(progress);
+    if (progressGauges != null) {
+      progressGauges.forEach(meterRegistry::remove);
+    }
+  }
+
+}
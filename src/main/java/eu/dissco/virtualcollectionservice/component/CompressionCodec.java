@@ -0,0 +1,26 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import java.io.IOException;
+
+/**
+ * Compression algorithm for message bodies. Implementations are picked up as Spring components and
+ * selected by their content encoding, both for outgoing messages (through configuration) and for
+ * incoming messages (through the contentEncoding header of the message).
+ */
+public interface CompressionCodec {
+
+  /**
+   * Value of the contentEncoding message property for bodies compressed by this codec.
+   */
+  String getContentEncoding();
+
+  byte[] compress(byte[] message) throws IOException;
+
+  /**
+   * Compresses with the given level, the range of valid levels depends on the codec.
+   */
+  byte[] compress(byte[] message, int level) throws IOException;
+
+  byte[] decompress(byte[] compressed) throws IOException;
+
+}
@@ -13,6 +13,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ElasticSearchQueryParser {
 
+  private static final String HAS_VIRTUAL_COLLECTION = "hasVirtualCollection";
+  private static final String RELATIONSHIP_OF_RESOURCE_FIELD =
+      "ods:hasEntityRelationships.dwc:relationshipOfResource.keyword";
+  private static final String RELATED_RESOURCE_ID_FIELD =
+      "ods:hasEntityRelationships.dwc:relatedResourceID.keyword";
+
   private ElasticSearchQueryParser() {
     // This is a utility class
   }
@@ -34,6 +40,20 @@ public class ElasticSearchQueryParser {
     }
   }
 
+  /**
+   * Query for all specimens that carry a hasVirtualCollection relationship to the given virtual
+   * collection, used to remove the relationship when the virtual collection is deleted.
+   */
+  public static Query parseVirtualCollectionRelationshipQuery(String virtualCollectionId) {
+    var relationshipQuery = new Query.Builder().term(
+        t -> t.field(RELATIONSHIP_OF_RESOURCE_FIELD).value(FieldValue.of(HAS_VIRTUAL_COLLECTION)))
+        .build();
+    var relatedResourceQuery = new Query.Builder().term(
+        t -> t.field(RELATED_RESOURCE_ID_FIELD).value(FieldValue.of(virtualCollectionId))).build();
+    return new Query.Builder().bool(b -> b.must(List.of(relationshipQuery, relatedResourceQuery)))
+        .build();
+  }
+
   private static Query handleSinglePredicate(TargetDigitalObjectFilter filter) {
     log.debug("Assuming this is an individual predicate: {}", filter);
     var predicateType = filter.getOdsPredicateType();
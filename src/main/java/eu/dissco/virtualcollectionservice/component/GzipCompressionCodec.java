@@ -0,0 +1,31 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import eu.dissco.virtualcollectionservice.utils.GzipUtils;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GzipCompressionCodec implements CompressionCodec {
+
+  public static final String CONTENT_ENCODING = "gzip";
+
+  @Override
+  public String getContentEncoding() {
+    return CONTENT_ENCODING;
+  }
+
+  @Override
+  public byte[] compress(byte[] message) {
+    return GzipUtils.compress(message);
+  }
+
+  @Override
+  public byte[] compress(byte[] message, int level) {
+    return GzipUtils.compress(message, level);
+  }
+
+  @Override
+  public byte[] decompress(byte[] compressed) throws IOException {
+    return GzipUtils.decompress(compressed);
+  }
+}
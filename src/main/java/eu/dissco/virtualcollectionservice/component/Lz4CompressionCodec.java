@@ -0,0 +1,57 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream.BLOCKSIZE;
+import net.jpountz.lz4.LZ4FrameOutputStream.FLG.Bits;
+import net.jpountz.xxhash.XXHashFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Uses the LZ4 frame format, so the bodies can be read by any LZ4 implementation and not only by
+ * lz4-java. Level 0 uses the fast compressor, higher levels the high compression compressor.
+ */
+@Component
+public class Lz4CompressionCodec implements CompressionCodec {
+
+  public static final String CONTENT_ENCODING = "lz4";
+  // Messages are small, the default block size of 4MB would allocate a large buffer per message
+  private static final BLOCKSIZE BLOCK_SIZE = BLOCKSIZE.SIZE_64KB;
+
+  private final LZ4Factory factory = LZ4Factory.fastestInstance();
+  private final XXHashFactory hashFactory = XXHashFactory.fastestInstance();
+
+  @Override
+  public String getContentEncoding() {
+    return CONTENT_ENCODING;
+  }
+
+  @Override
+  public byte[] compress(byte[] message) throws IOException {
+    return compress(message, 0);
+  }
+
+  @Override
+  public byte[] compress(byte[] message, int level) throws IOException {
+    LZ4Compressor compressor = level <= 0 ? factory.fastCompressor()
+        : factory.highCompressor(level);
+    var outputStream = new ByteArrayOutputStream(message.length / 2 + 64);
+    try (var lz4OutputStream = new LZ4FrameOutputStream(outputStream, BLOCK_SIZE, message.length,
+        compressor, hashFactory.hash32(), Bits.BLOCK_INDEPENDENCE, Bits.CONTENT_SIZE)) {
+      lz4OutputStream.write(message);
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Override
+  public byte[] decompress(byte[] compressed) throws IOException {
+    try (var inputStream = new LZ4FrameInputStream(new ByteArrayInputStream(compressed))) {
+      return inputStream.readAllBytes();
+    }
+  }
+}
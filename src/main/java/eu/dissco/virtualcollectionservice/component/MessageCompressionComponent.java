@@ -1,15 +1,19 @@
 package eu.dissco.virtualcollectionservice.component;
 
-import java.io.BufferedReader;
+import eu.dissco.virtualcollectionservice.property.CompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.stream.Collectors;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import lombok.extern.slf4j.Slf4j;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.support.converter.MessageConversionException;
@@ -18,61 +22,131 @@ import org.springframework.amqp.support.converter.SimpleMessageConverter;
 import org.springframework.stereotype.Component;
 
 @Component
-@Slf4j
 public class MessageCompressionComponent implements MessageConverter {
 
+  private static final String BYTES_IN_METRIC = "message.compression.bytes.in";
+  private static final String BYTES_OUT_METRIC = "message.compression.bytes.out";
+  private static final String RATIO_METRIC = "message.compression.ratio";
+  private static final String UNCOMPRESSED = "identity";
+
   final MessageConverter simpleConverter = new SimpleMessageConverter();
+  private final Map<String, CompressionCodec> codecs = new HashMap<>();
+  private final CompressionCodec outgoingCodec;
+  private final int minSize;
+  private final NavigableMap<Integer, Integer> levels;
+  private final Counter compressedBytesIn;
+  private final Counter compressedBytesOut;
+  private final Counter uncompressedBytes;
+  private final DistributionSummary compressionRatio;
 
-  private static byte[] deflateMessage(byte[] message) throws IOException {
-    var bufferSize = 8192; // 8KB
-    try (var rstBao = new ByteArrayOutputStream(bufferSize)) {
-      try (var zos = new GZIPOutputStream(rstBao, bufferSize)) {
-        zos.write(message);
-        zos.flush();
-      }
-      return rstBao.toByteArray();
+  public MessageCompressionComponent(List<CompressionCodec> codecs,
+      CompressionProperties properties, MeterRegistry meterRegistry) {
+    for (var codec : codecs) {
+      this.codecs.put(codec.getContentEncoding(), codec);
     }
+    this.outgoingCodec = this.codecs.get(properties.getContentEncoding());
+    if (outgoingCodec == null) {
+      throw new IllegalStateException(
+          "No compression codec available for content encoding: "
+              + properties.getContentEncoding() + ", supported: " + this.codecs.keySet());
+    }
+    this.minSize = properties.getMinSize();
+    this.levels = new TreeMap<>(properties.getLevels());
+    var encoding = outgoingCodec.getContentEncoding();
+    this.compressedBytesIn = bytesCounter(meterRegistry, BYTES_IN_METRIC, encoding);
+    this.compressedBytesOut = bytesCounter(meterRegistry, BYTES_OUT_METRIC, encoding);
+    // Uncompressed messages are published as is, so in and out are the same
+    this.uncompressedBytes = bytesCounter(meterRegistry, BYTES_OUT_METRIC, UNCOMPRESSED);
+    this.compressionRatio = DistributionSummary.builder(RATIO_METRIC)
+        .description("Compressed size of published messages as a fraction of the original size")
+        .tag("encoding", encoding)
+        .register(meterRegistry);
+  }
+
+  private static Counter bytesCounter(MeterRegistry meterRegistry, String name, String encoding) {
+    return Counter.builder(name)
+        .description("Size of published message bodies")
+        .baseUnit(BaseUnits.BYTES)
+        .tag("encoding", encoding)
+        .register(meterRegistry);
   }
 
+  /**
+   * Accepts the json message as String or as UTF-8 encoded bytes.
+   */
   @Override
-  public Message toMessage(final Object messageString, final MessageProperties messageProperties)
+  public Message toMessage(final Object messageObject, final MessageProperties messageProperties)
       throws MessageConversionException {
 
-    if (!(messageString instanceof String)) {
-      throw new MessageConversionException("Invalid message type: " + messageString.getClass());
+    final byte[] message = switch (messageObject) {
+      case String messageString -> messageString.getBytes(StandardCharsets.UTF_8);
+      case byte[] messageBytes -> messageBytes;
+      default -> throw new MessageConversionException(
+          "Invalid message type: " + messageObject.getClass());
+    };
+
+    messageProperties.setContentType("application/json");
+    if (message.length < minSize) {
+      // Below the threshold the codec framing costs more than compression saves
+      uncompressedBytes.increment(message.length);
+      return new Message(message, messageProperties);
     }
-    final byte[] message = ((String) messageString).getBytes(StandardCharsets.UTF_8);
+    final byte[] compressedMessage = compress(message);
+    compressedBytesIn.increment(message.length);
+    compressedBytesOut.increment(compressedMessage.length);
+    compressionRatio.record((double) compressedMessage.length / message.length);
+    messageProperties.setContentEncoding(outgoingCodec.getContentEncoding());
+    return new Message(compressedMessage, messageProperties);
+  }
 
-    final byte[] compressedMessage;
+  private byte[] compress(byte[] message) {
+    var level = levels.floorEntry(message.length);
     try {
-      compressedMessage = deflateMessage(message);
-      log.debug(
-          "Compressed Length: " + compressedMessage.length + " vs Message Length: " + message.length
-              + " / Ratio: " +
-              String.format("%.2f%%", compressedMessage.length * 100f / message.length));
-      messageProperties.setContentType("application/json");
-      messageProperties.setContentEncoding("gzip");
-      return new Message(compressedMessage, messageProperties);
+      return level == null ? outgoingCodec.compress(message)
+          : outgoingCodec.compress(message, level.getValue());
     } catch (IOException e) {
-      throw new MessageConversionException("Failed to compress message " + messageString, e);
+      throw new MessageConversionException(
+          "Failed to compress message with " + outgoingCodec.getContentEncoding(), e);
+    }
+  }
+
+  /**
+   * Opens the body of the message as a stream, compressed bodies are decompressed with the codec
+   * matching their content encoding. Allows the body to be parsed without building an intermediate
+   * String.
+   */
+  public InputStream getBodyStream(final Message message) throws IOException {
+    var contentEncoding = message.getMessageProperties().getContentEncoding();
+    if (contentEncoding == null) {
+      return new ByteArrayInputStream(message.getBody());
     }
+    return new ByteArrayInputStream(getCodec(contentEncoding).decompress(message.getBody()));
   }
 
   @Override
   public Object fromMessage(final Message message) throws MessageConversionException {
-    var useGzip = "gzip".equals(message.getMessageProperties().getContentEncoding());
-    if (useGzip) {
-      try {
-        try (var reader = new BufferedReader(new InputStreamReader(
-            new GZIPInputStream(new ByteArrayInputStream(message.getBody()))))) {
-          return reader.lines().collect(Collectors.joining(System.lineSeparator()));
-        }
-      } catch (IOException e) {
-        throw new MessageConversionException(
-            "Failed to decompress message " + new String(message.getBody()), e);
+    var contentEncoding = message.getMessageProperties().getContentEncoding();
+    if (contentEncoding == null) {
+      // Messages below the compression threshold are published as uncompressed json
+      if ("application/json".equals(message.getMessageProperties().getContentType())) {
+        return new String(message.getBody(), StandardCharsets.UTF_8);
       }
-    } else {
       return simpleConverter.fromMessage(message);
     }
+    try {
+      return new String(getCodec(contentEncoding).decompress(message.getBody()),
+          StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new MessageConversionException(
+          "Failed to decompress message " + new String(message.getBody()), e);
+    }
+  }
+
+  private CompressionCodec getCodec(String contentEncoding) throws IOException {
+    var codec = codecs.get(contentEncoding);
+    if (codec == null) {
+      throw new IOException("Unsupported content encoding: " + contentEncoding);
+    }
+    return codec;
   }
 }
@@ -1,90 +1,188 @@
 package eu.dissco.virtualcollectionservice.component;
 
-import static eu.dissco.virtualcollectionservice.utils.FilterParseUtils.harmonizeValues;
-
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
+import eu.dissco.virtualcollectionservice.property.QuarantineProperties;
 import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
-import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
-import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class SpecimenEvaluationComponent {
 
+  private static final String MATCHES_METRIC = "virtual.collection.matches";
+  // Missing leaves read as null instead of throwing, which is expensive for every absent field
+  private static final Configuration JSON_PATH_CONFIGURATION = Configuration.defaultConfiguration()
+      .addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL);
+
   private final ObjectMapper objectMapper;
+  private final VirtualCollectionCacheComponent cache;
+  private final long evaluationBudgetNanos;
+  private final int budgetViolations;
+  private final int budgetSampleInterval;
+  private final MeterRegistry meterRegistry;
+  private final Timer parseTimer;
+  private final Timer evaluationTimer;
+  private final DistributionSummary candidatesSummary;
+  private final Map<String, Counter> matchCounters = new ConcurrentHashMap<>();
+  private final Map<String, BudgetViolations> budgetViolationCounts = new ConcurrentHashMap<>();
+
+  public SpecimenEvaluationComponent(ObjectMapper objectMapper,
+      VirtualCollectionCacheComponent cache, QuarantineProperties quarantineProperties,
+      MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.cache = cache;
+    this.evaluationBudgetNanos = quarantineProperties.getEvaluationBudget().toNanos();
+    this.budgetViolations = quarantineProperties.getBudgetViolations();
+    this.budgetSampleInterval = quarantineProperties.getBudgetSampleInterval();
+    this.meterRegistry = meterRegistry;
+    this.parseTimer = Timer.builder("specimen.parse")
+        .description("Time to serialize and parse a specimen for evaluation")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.evaluationTimer = Timer.builder("specimen.evaluation")
+        .description("Time to evaluate a specimen against the virtual collections")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.candidatesSummary = DistributionSummary.builder("specimen.evaluation.candidates")
+        .description("Number of candidate virtual collections evaluated per specimen")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
 
-  public boolean evaluateSpecimen(DigitalSpecimen specimen,
-      TargetDigitalObjectFilter filter) throws JsonProcessingException {
-    if (filter.getOdsHasPredicates() == null || filter.getOdsHasPredicates().isEmpty()) {
-      return handleSinglePredicate(specimen, filter);
-    } else if (filter.getOdsHasPredicates() != null && !filter.getOdsHasPredicates().isEmpty()) {
-      return handleMultiplePredicates(specimen, filter);
-    } else {
-      throw new IllegalArgumentException(
-          "The filter must contain either a single predicate or a list of predicates");
+  /**
+   * Serializes and parses the specimen once, the resulting document can be evaluated against any
+   * number of virtual collections.
+   */
+  public DocumentContext parseSpecimen(DigitalSpecimen specimen) throws JsonProcessingException {
+    var sample = Timer.start(meterRegistry);
+    try {
+      return JsonPath.using(JSON_PATH_CONFIGURATION)
+          .parse(objectMapper.writeValueAsString(specimen));
+    } finally {
+      sample.stop(parseTimer);
     }
   }
 
-  private boolean handleMultiplePredicates(DigitalSpecimen specimen,
-      TargetDigitalObjectFilter filter)
-      throws JsonProcessingException {
-    log.debug("Assuming this is a list of predicates: {}", filter);
-    var document = JsonPath.parse(objectMapper.writeValueAsString(specimen));
-    for (var predicate : filter.getOdsHasPredicates()) {
-      var result = checkPredicate(document, predicate.getOdsPredicateType().value(),
-          predicate.getOdsPredicateKey(),
-          harmonizeValues(predicate.getOdsPredicateValue(), predicate.getOdsPredicateValues()));
-      if (result && filter.getOdsPredicateType().equals(OdsPredicateType.OR)) {
-        return true;
-      }
-      if (!result && filter.getOdsPredicateType().equals(OdsPredicateType.AND)) {
-        return false;
+  /**
+   * Only evaluates the candidates the index returns for this document, so the cost scales with the
+   * number of possible matches instead of with the total number of virtual collections. A virtual
+   * collection whose filter fails is a non-match for this specimen and is quarantined.
+   */
+  public List<VirtualCollection> findMatchingVirtualCollections(DocumentContext document,
+      VirtualCollectionIndex index) {
+    var sample = Timer.start(meterRegistry);
+    var candidates = index.findCandidates(document);
+    log.debug("Evaluating {} candidates out of {} virtual collections", candidates.size(),
+        index.size());
+    var matches = new ArrayList<VirtualCollection>();
+    for (var virtualCollection : candidates) {
+      if (matches(virtualCollection, document)) {
+        matches.add(virtualCollection.virtualCollection());
       }
     }
-    if (filter.getOdsPredicateType().equals(OdsPredicateType.AND)) {
-      return true;
-    } else if (filter.getOdsPredicateType().equals(OdsPredicateType.OR)) {
+    sample.stop(evaluationTimer);
+    candidatesSummary.record(candidates.size());
+    for (var virtualCollection : matches) {
+      getMatchCounter(virtualCollection.getId()).increment();
+    }
+    return matches;
+  }
+
+  private boolean matches(CompiledVirtualCollection virtualCollection, DocumentContext document) {
+    var timed = budgetSampleInterval > 0
+        && ThreadLocalRandom.current().nextInt(budgetSampleInterval) == 0;
+    var start = timed ? System.nanoTime() : 0L;
+    boolean matches;
+    try {
+      matches = virtualCollection.filter().matches(document);
+    } catch (RuntimeException e) {
+      log.error("Failed to evaluate the filter of virtual collection: {}",
+          virtualCollection.virtualCollection().getId(), e);
+      cache.quarantineVirtualCollection(virtualCollection, "Evaluation failed: " + e);
       return false;
-    } else {
-      throw new IllegalArgumentException(
-          "When using a list of predicates, the predicate type must be either AND or OR");
     }
+    if (timed) {
+      checkBudget(virtualCollection, System.nanoTime() - start);
+    }
+    return matches;
   }
 
-  private boolean handleSinglePredicate(DigitalSpecimen specimen, TargetDigitalObjectFilter filter)
-      throws JsonProcessingException {
-    log.debug("Assuming this is an individual predicate: {}", filter);
-    var harmonizedValues = harmonizeValues(filter.getOdsPredicateValue(),
-        filter.getOdsPredicateValues());
-    var document = JsonPath.parse(objectMapper.writeValueAsString(specimen));
-    return checkPredicate(document, filter.getOdsPredicateType().value(),
-        filter.getOdsPredicateKey(), harmonizedValues);
+  /**
+   * A slow evaluation can be caused by a pause of the JVM or contention for the CPU, the virtual
+   * collection is only quarantined when its timed evaluations exceed the budget consecutively. The
+   * count starts over when the virtual collection is replaced by a new version.
+   */
+  private void checkBudget(CompiledVirtualCollection virtualCollection, long elapsed) {
+    var virtualCollectionId = virtualCollection.virtualCollection().getId();
+    if (elapsed <= evaluationBudgetNanos) {
+      budgetViolationCounts.remove(virtualCollectionId);
+      return;
+    }
+    var violations = budgetViolationCounts.compute(virtualCollectionId,
+        (id, current) -> current == null || current.virtualCollection() != virtualCollection
+            ? new BudgetViolations(virtualCollection, 1) : current.increment()).count();
+    log.warn("Evaluation of virtual collection: {} took {}ms, exceeding the budget {} times in a "
+        + "row",
+        virtualCollectionId, elapsed / 1_000_000, violations);
+    if (violations >= budgetViolations) {
+      budgetViolationCounts.remove(virtualCollectionId);
+      cache.quarantineVirtualCollection(virtualCollection,
+          "Evaluation exceeded the budget " + violations + " times in a row");
+    }
   }
 
-  private boolean checkPredicate(DocumentContext document, String predicateType,
-      String predicateKey, List<Object> predicateValues) {
-    if (predicateType.equals(OdsPredicateType.EQUALS.value()) && predicateValues.size() == 1) {
-      var result = document.read(predicateKey);
-      return predicateValues.getFirst().equals(result);
-    } else if (predicateType.equals(OdsPredicateType.NOT.value()) && predicateValues.size() == 1) {
-      var result = document.read(predicateKey);
-      return !predicateValues.getFirst().equals(result);
-    } else if (
-        (predicateType.equals(OdsPredicateType.IN.value()) || predicateType
-            .equals(OdsPredicateType.EQUALS.value())) && predicateValues.size() > 1) {
-      var result = document.read(predicateKey);
-      return predicateValues.contains(result);
-    } else {
-      throw new IllegalArgumentException(
-          "The predicate type is not supported for local evaluation: " + predicateType);
+  /**
+   * Removes the match counters and budget violations of virtual collections that left the cache,
+   * so deleted and quarantined collections do not keep their meters registered.
+   */
+  @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+  public void removeStaleMatchCounters() {
+    var ids = new HashSet<String>();
+    for (var virtualCollection : cache.getIndex().getVirtualCollections()) {
+      ids.add(virtualCollection.virtualCollection().getId());
+    }
+    budgetViolationCounts.keySet().retainAll(ids);
+    matchCounters.entrySet().removeIf(entry -> {
+      if (ids.contains(entry.getKey())) {
+        return false;
+      }
+      meterRegistry.remove(entry.getValue());
+      return true;
+    });
+  }
+
+  private Counter getMatchCounter(String virtualCollectionId) {
+    return matchCounters.computeIfAbsent(virtualCollectionId, id -> Counter.builder(MATCHES_METRIC)
+        .description("Number of specimens matched by the virtual collection")
+        .tag("virtualCollection", id)
+        .register(meterRegistry));
+  }
+
+  private record BudgetViolations(CompiledVirtualCollection virtualCollection, int count) {
+
+    BudgetViolations increment() {
+      return new BudgetViolations(virtualCollection, count + 1);
     }
   }
 }
@@ -0,0 +1,85 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static eu.dissco.virtualcollectionservice.utils.FilterParseUtils.harmonizeValues;
+
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.AndFilter;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.EqualsPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.InPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.NotPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.OrFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class SpecimenFilterCompiler {
+
+  private SpecimenFilterCompiler() {
+    // This is a utility class
+  }
+
+  public static CompiledFilter compileFilter(TargetDigitalObjectFilter filter) {
+    if (filter.getOdsHasPredicates() == null || filter.getOdsHasPredicates().isEmpty()) {
+      return handleSinglePredicate(filter);
+    } else {
+      return handleMultiplePredicates(filter);
+    }
+  }
+
+  private static CompiledFilter handleSinglePredicate(TargetDigitalObjectFilter filter) {
+    log.debug("Compiling an individual predicate: {}", filter);
+    var harmonizedValues = harmonizeValues(filter.getOdsPredicateValue(),
+        filter.getOdsPredicateValues());
+    return getPredicate(filter.getOdsPredicateType().value(), filter.getOdsPredicateKey(),
+        harmonizedValues);
+  }
+
+  private static CompiledFilter handleMultiplePredicates(TargetDigitalObjectFilter filter) {
+    log.debug("Compiling a list of predicates: {}", filter);
+    var compiledPredicates = filter.getOdsHasPredicates().stream()
+        .map(predicate -> getPredicate(predicate.getOdsPredicateType().value(),
+            predicate.getOdsPredicateKey(),
+            harmonizeValues(predicate.getOdsPredicateValue(), predicate.getOdsPredicateValues())))
+        .toList();
+    if (filter.getOdsPredicateType().equals(OdsPredicateType.AND)) {
+      return new AndFilter(compiledPredicates);
+    } else if (filter.getOdsPredicateType().equals(OdsPredicateType.OR)) {
+      return new OrFilter(compiledPredicates);
+    } else {
+      throw new IllegalArgumentException(
+          "When using a list of predicates, the predicate type must be either AND or OR");
+    }
+  }
+
+  private static CompiledFilter getPredicate(String predicateType, String predicateKey,
+      List<Object> predicateValues) {
+    if (predicateType.equals(OdsPredicateType.EQUALS.value()) && predicateValues.size() == 1) {
+      return new EqualsPredicate(predicateKey, compilePath(predicateKey),
+          predicateValues.getFirst());
+    } else if (predicateType.equals(OdsPredicateType.NOT.value()) && predicateValues.size() == 1) {
+      return new NotPredicate(predicateKey, compilePath(predicateKey), predicateValues.getFirst());
+    } else if (
+        (predicateType.equals(OdsPredicateType.IN.value()) || predicateType
+            .equals(OdsPredicateType.EQUALS.value())) && predicateValues.size() > 1) {
+      return new InPredicate(predicateKey, compilePath(predicateKey),
+          Collections.unmodifiableSet(new HashSet<>(predicateValues)));
+    } else {
+      throw new IllegalArgumentException(
+          "The predicate type is not supported for local evaluation: " + predicateType);
+    }
+  }
+
+  private static JsonPath compilePath(String predicateKey) {
+    try {
+      return JsonPath.compile(predicateKey);
+    } catch (InvalidPathException e) {
+      throw new IllegalArgumentException("Invalid predicate key: " + predicateKey, e);
+    }
+  }
+}
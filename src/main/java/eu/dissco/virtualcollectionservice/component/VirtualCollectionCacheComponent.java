@@ -1,44 +1,344 @@
 package eu.dissco.virtualcollectionservice.component;
 
+import static eu.dissco.virtualcollectionservice.component.SpecimenFilterCompiler.compileFilter;
+
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.QuarantinedVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionChange;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
+import eu.dissco.virtualcollectionservice.property.CacheProperties;
 import eu.dissco.virtualcollectionservice.repository.VirtualCollectionRepository;
 import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import java.util.Set;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.Locked;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class VirtualCollectionCacheComponent {
 
+  private static final String REFRESH_METRIC = "virtual.collection.cache.refresh";
+
   private final VirtualCollectionRepository repository;
+  private final CacheProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Timer fullRefreshTimer;
+  private final Timer deltaRefreshTimer;
+
+  /**
+   * Immutable snapshot of the compiled virtual collections and their index. Readers never lock, a
+   * new snapshot is built off to the side and swapped in atomically. Writers are serialized so that
+   * concurrent updates can not overwrite each other.
+   */
+  private volatile VirtualCollectionIndex cache = VirtualCollectionIndex.empty();
+
+  // High-water mark of the modified and tombstoned timestamps, only accessed by writers
+  private Instant lastChange = Instant.EPOCH;
+
+  // Virtual collections excluded from the snapshot, a collection is released when it changes
+  private final Map<String, QuarantinedVirtualCollection> quarantine = new ConcurrentHashMap<>();
 
-  private Set<VirtualCollection> cache;
+  // Quarantines reported while a writer held the lock, applied by the next writer
+  private final Queue<PendingQuarantine> pendingQuarantine = new ConcurrentLinkedQueue<>();
+
+  private final Lock lock = new ReentrantLock();
+
+  public VirtualCollectionCacheComponent(VirtualCollectionRepository repository,
+      CacheProperties properties, MeterRegistry meterRegistry) {
+    this.repository = repository;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.fullRefreshTimer = refreshTimer(meterRegistry, "full");
+    this.deltaRefreshTimer = refreshTimer(meterRegistry, "delta");
+    Gauge.builder("virtual.collection.cache.size", this, c -> c.cache.size())
+        .description("Number of compiled virtual collections in the cache")
+        .register(meterRegistry);
+    Gauge.builder("virtual.collection.quarantine.size", quarantine, Map::size)
+        .description("Number of quarantined virtual collections")
+        .register(meterRegistry);
+  }
+
+  private static Timer refreshTimer(MeterRegistry meterRegistry, String type) {
+    return Timer.builder(REFRESH_METRIC)
+        .description("Time to refresh the virtual collection cache")
+        .tag("type", type)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
 
-  @Locked.Write
+  @Locked("lock")
   @PostConstruct
   public void fillCache() {
-    cache = repository.getAllVirtualCollections();
-    log.info("Virtual Collection Cache Initialized, total Virtual Collections: {}", cache.size());
+    applyPendingQuarantine();
+    var sample = Timer.start(meterRegistry);
+    var snapshot = loadAllVirtualCollections();
+    sample.stop(fullRefreshTimer);
+    cache = snapshot;
+    log.info("Virtual Collection Cache Initialized, total Virtual Collections: {}",
+        snapshot.size());
   }
 
-  @Locked.Read
-  public Set<VirtualCollection> getCache() {
-    return Set.copyOf(cache);
+  public VirtualCollectionIndex getIndex() {
+    return cache;
   }
 
-  @Locked.Write
+  public Collection<QuarantinedVirtualCollection> getQuarantine() {
+    return quarantine.values();
+  }
+
+  /**
+   * Full reload of the cache, reconciles anything the delta refresh might have missed.
+   */
+  @Locked("lock")
   @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
   public void refreshCache() {
+    applyPendingQuarantine();
     log.info("Refreshing Virtual Collection Cache");
-    cache.clear();
-    cache.addAll(repository.getAllVirtualCollections());
-    log.info("Virtual Collection Cache refreshed, total Virtual Collections: {}", cache.size());
+    var sample = Timer.start(meterRegistry);
+    var snapshot = loadAllVirtualCollections();
+    sample.stop(fullRefreshTimer);
+    cache = snapshot;
+    log.info("Virtual Collection Cache refreshed, total Virtual Collections: {}", snapshot.size());
+  }
+
+  /**
+   * Only fetches the virtual collections that were modified or tombstoned since the last refresh
+   * and patches them into a new snapshot. The query overlaps with the previous refresh, changes
+   * that are already applied are skipped so the snapshot is only rebuilt for new changes.
+   */
+  @Locked("lock")
+  @Scheduled(fixedDelayString = "${cache.delta-refresh-interval:10}", timeUnit = TimeUnit.SECONDS)
+  public void refreshCacheDelta() {
+    if (!properties.isDeltaRefreshEnabled()) {
+      return;
+    }
+    applyPendingQuarantine();
+    var sample = Timer.start(meterRegistry);
+    var changes = repository.getVirtualCollectionsChangedSince(
+        lastChange.minus(properties.getDeltaRefreshOverlap()));
+    if (changes.isEmpty()) {
+      sample.stop(deltaRefreshTimer);
+      return;
+    }
+    var virtualCollections = getVirtualCollectionsById();
+    var applied = 0;
+    for (var change : changes) {
+      if (change.changed().isAfter(lastChange)) {
+        lastChange = change.changed();
+      }
+      if (isApplied(change, virtualCollections)) {
+        continue;
+      }
+      applied++;
+      var id = change.virtualCollection().getId();
+      virtualCollections.remove(id);
+      quarantine.remove(id);
+      if (!change.tombstoned()) {
+        compileVirtualCollection(change.virtualCollection()).ifPresent(
+            compiledVirtualCollection -> virtualCollections.put(id, compiledVirtualCollection));
+      }
+    }
+    if (applied == 0) {
+      sample.stop(deltaRefreshTimer);
+      return;
+    }
+    var snapshot = VirtualCollectionIndex.of(virtualCollections.values());
+    cache = snapshot;
+    sample.stop(deltaRefreshTimer);
+    log.info("Applied {} changes to the Virtual Collection Cache, total Virtual Collections: {}",
+        applied, snapshot.size());
+  }
+
+  private boolean isApplied(VirtualCollectionChange change,
+      Map<String, CompiledVirtualCollection> virtualCollections) {
+    var id = change.virtualCollection().getId();
+    if (change.tombstoned()) {
+      return !virtualCollections.containsKey(id) && !quarantine.containsKey(id);
+    }
+    var current = virtualCollections.get(id);
+    if (current != null) {
+      return current.virtualCollection().equals(change.virtualCollection());
+    }
+    var quarantined = quarantine.get(id);
+    return quarantined != null && quarantined.virtualCollection()
+        .equals(change.virtualCollection());
+  }
+
+  /**
+   * Adds or replaces a single virtual collection, used to apply CREATE events immediately instead
+   * of waiting for the next refresh.
+   */
+  @Locked("lock")
+  public void addVirtualCollection(VirtualCollection virtualCollection) {
+    applyPendingQuarantine();
+    quarantine.remove(virtualCollection.getId());
+    var compiledVirtualCollection = compileVirtualCollection(virtualCollection);
+    var virtualCollections = getVirtualCollectionsById();
+    if (compiledVirtualCollection.isEmpty()) {
+      // The previous version must not be matched while the new one is quarantined
+      if (virtualCollections.remove(virtualCollection.getId()) != null) {
+        cache = VirtualCollectionIndex.of(virtualCollections.values());
+      }
+      return;
+    }
+    virtualCollections.put(virtualCollection.getId(), compiledVirtualCollection.get());
+    cache = VirtualCollectionIndex.of(virtualCollections.values());
+    log.info("Added virtual collection: {} to the cache", virtualCollection.getId());
+  }
+
+  @Locked("lock")
+  public void removeVirtualCollection(String virtualCollectionId) {
+    applyPendingQuarantine();
+    quarantine.remove(virtualCollectionId);
+    var virtualCollections = getVirtualCollectionsById();
+    if (virtualCollections.remove(virtualCollectionId) != null) {
+      cache = VirtualCollectionIndex.of(virtualCollections.values());
+      log.info("Removed virtual collection: {} from the cache", virtualCollectionId);
+    }
+  }
+
+  /**
+   * Removes the virtual collection from the snapshot until it changes or is released, used when its
+   * filter fails or is too slow during evaluation. Specimens that are being evaluated against a
+   * previous snapshot can still report it or a version that was replaced since, only the compiled
+   * instance in the current snapshot is quarantined and other calls are ignored. The ingestion
+   * threads never wait for a refresh, while a writer holds the lock the quarantine is left for the
+   * next writer or the next report.
+   */
+  public void quarantineVirtualCollection(CompiledVirtualCollection compiledVirtualCollection,
+      String reason) {
+    if (quarantine.containsKey(compiledVirtualCollection.virtualCollection().getId())) {
+      return;
+    }
+    pendingQuarantine.add(new PendingQuarantine(compiledVirtualCollection, reason));
+    if (lock.tryLock()) {
+      try {
+        applyPendingQuarantine();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void applyPendingQuarantine() {
+    if (pendingQuarantine.isEmpty()) {
+      return;
+    }
+    var virtualCollections = getVirtualCollectionsById();
+    var quarantined = false;
+    PendingQuarantine pending;
+    while ((pending = pendingQuarantine.poll()) != null) {
+      var compiledVirtualCollection = pending.virtualCollection();
+      var id = compiledVirtualCollection.virtualCollection().getId();
+      if (virtualCollections.get(id) == compiledVirtualCollection) {
+        virtualCollections.remove(id);
+        addToQuarantine(compiledVirtualCollection.virtualCollection(), pending.reason());
+        quarantined = true;
+      }
+    }
+    if (quarantined) {
+      cache = VirtualCollectionIndex.of(virtualCollections.values());
+    }
+  }
+
+  /**
+   * Releases the virtual collection from the quarantine and adds it to the cache again, it is
+   * quarantined again when its filter still does not compile. Returns whether it was quarantined.
+   */
+  @Locked("lock")
+  public boolean releaseVirtualCollection(String virtualCollectionId) {
+    applyPendingQuarantine();
+    var quarantined = quarantine.remove(virtualCollectionId);
+    if (quarantined == null) {
+      return false;
+    }
+    log.info("Released virtual collection: {} from quarantine", virtualCollectionId);
+    addVirtualCollection(quarantined.virtualCollection());
+    return true;
+  }
+
+  private void addToQuarantine(VirtualCollection virtualCollection, String reason) {
+    quarantine.put(virtualCollection.getId(),
+        new QuarantinedVirtualCollection(virtualCollection, reason, Instant.now()));
+    log.warn("Quarantined virtual collection: {}, reason: {}", virtualCollection.getId(), reason);
+  }
+
+  private Map<String, CompiledVirtualCollection> getVirtualCollectionsById() {
+    var virtualCollections = new HashMap<String, CompiledVirtualCollection>();
+    for (var virtualCollection : cache.getVirtualCollections()) {
+      virtualCollections.put(virtualCollection.virtualCollection().getId(), virtualCollection);
+    }
+    return virtualCollections;
+  }
+
+  private VirtualCollectionIndex loadAllVirtualCollections() {
+    // Read the high-water mark first, changes made during the load are picked up by the next delta
+    var latestChange = repository.getLatestChange().orElse(Instant.EPOCH);
+    var virtualCollections = repository.getAllVirtualCollections();
+    var compiledVirtualCollections = new ArrayList<CompiledVirtualCollection>();
+    var ids = new HashSet<String>();
+    for (var virtualCollection : virtualCollections) {
+      ids.add(virtualCollection.getId());
+      if (isStillQuarantined(virtualCollection)) {
+        continue;
+      }
+      compileVirtualCollection(virtualCollection).ifPresent(compiledVirtualCollections::add);
+    }
+    quarantine.keySet().retainAll(ids);
+    lastChange = latestChange;
+    return VirtualCollectionIndex.of(compiledVirtualCollections);
+  }
+
+  /**
+   * A quarantined virtual collection stays excluded on a full reload unless it was modified.
+   */
+  private boolean isStillQuarantined(VirtualCollection virtualCollection) {
+    var quarantined = quarantine.get(virtualCollection.getId());
+    if (quarantined == null) {
+      return false;
+    }
+    if (Objects.equals(quarantined.virtualCollection().getSchemaDateModified(),
+        virtualCollection.getSchemaDateModified())) {
+      return true;
+    }
+    quarantine.remove(virtualCollection.getId());
+    return false;
+  }
+
+  private Optional<CompiledVirtualCollection> compileVirtualCollection(
+      VirtualCollection virtualCollection) {
+    try {
+      return Optional.of(new CompiledVirtualCollection(virtualCollection,
+          compileFilter(virtualCollection.getOdsHasTargetDigitalObjectFilter())));
+    } catch (RuntimeException e) {
+      log.error("Unable to compile the filter of virtual collection: {}, it will be quarantined",
+          virtualCollection.getId(), e);
+      addToQuarantine(virtualCollection, "Invalid filter: " + e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private record PendingQuarantine(CompiledVirtualCollection virtualCollection, String reason) {
+
   }
 
 }
@@ -0,0 +1,39 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing the quarantined virtual collections, a virtual collection can be
+ * released by its id. The service has no web server, the endpoint is exposed over JMX.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "quarantine")
+public class VirtualCollectionQuarantineEndpoint {
+
+  private final VirtualCollectionCacheComponent cache;
+
+  @ReadOperation
+  public List<QuarantineEntry> quarantine() {
+    return cache.getQuarantine().stream()
+        .map(quarantined -> new QuarantineEntry(quarantined.virtualCollection().getId(),
+            quarantined.virtualCollection().getLtcCollectionName(), quarantined.reason(),
+            quarantined.quarantined()))
+        .toList();
+  }
+
+  @DeleteOperation
+  public boolean release(String id) {
+    return cache.releaseVirtualCollection(id);
+  }
+
+  public record QuarantineEntry(String id, String name, String reason, Instant quarantined) {
+
+  }
+}
@@ -0,0 +1,61 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+import com.github.luben.zstd.ZstdInputStream;
+import eu.dissco.virtualcollectionservice.utils.GzipUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.ZipException;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ZstdCompressionCodec implements CompressionCodec {
+
+  public static final String CONTENT_ENCODING = "zstd";
+  // Returned for frames written by a streaming encoder, which does not know the size upfront
+  private static final long UNKNOWN_CONTENT_SIZE = -1;
+
+  @Override
+  public String getContentEncoding() {
+    return CONTENT_ENCODING;
+  }
+
+  @Override
+  public byte[] compress(byte[] message) throws IOException {
+    return compress(message, Zstd.defaultCompressionLevel());
+  }
+
+  @Override
+  public byte[] compress(byte[] message, int level) throws IOException {
+    try {
+      return Zstd.compress(message, level);
+    } catch (ZstdException e) {
+      throw new IOException("Failed to compress message with zstd", e);
+    }
+  }
+
+  @Override
+  public byte[] decompress(byte[] compressed) throws IOException {
+    if (compressed.length == 0) {
+      throw new ZipException("Not in zstd format");
+    }
+    try {
+      // Frames written by Zstd.compress contain the content size, so we can decompress in one go.
+      // The size is read from the message, larger sizes than the compressed data can plausibly
+      // produce are streamed instead of allocated up front
+      var contentSize = Zstd.getFrameContentSize(compressed);
+      if (contentSize >= 0 && GzipUtils.isPlausibleSize(contentSize, compressed.length)) {
+        return Zstd.decompress(compressed, (int) contentSize);
+      }
+      if (contentSize < 0 && contentSize != UNKNOWN_CONTENT_SIZE) {
+        throw new ZipException("Not in zstd format");
+      }
+      try (var inputStream = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+        return inputStream.readAllBytes();
+      }
+    } catch (ZstdException e) {
+      throw new ZipException("Invalid zstd data: " + e.getMessage());
+    }
+  }
+}
@@ -4,6 +4,7 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties;
 import lombok.RequiredArgsConstructor;
 import org.apache.http.HttpHost;
@@ -19,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 public class ElasticSearchConfiguration {
 
   private final ElasticSearchProperties properties;
+  private final ObjectMapper objectMapper;
 
   @Bean
   public ElasticsearchClient elasticsearchClient() {
@@ -30,7 +32,7 @@ public class ElasticSearchConfiguration {
         .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
             .setDefaultCredentialsProvider(credentialsProvider)).build();
     ElasticsearchTransport transport = new RestClientTransport(restClient,
-        new JacksonJsonpMapper());
+        new JacksonJsonpMapper(objectMapper.copy()));
     return new ElasticsearchClient(transport);
   }
 
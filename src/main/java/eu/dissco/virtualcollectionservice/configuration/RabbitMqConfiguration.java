@@ -3,12 +3,14 @@ package eu.dissco.virtualcollectionservice.configuration;
 import eu.dissco.virtualcollectionservice.component.MessageCompressionComponent;
 import eu.dissco.virtualcollectionservice.property.RabbitMqProperties;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+@Slf4j
 @Configuration
 @AllArgsConstructor
 public class RabbitMqConfiguration {
@@ -25,12 +27,27 @@ public class RabbitMqConfiguration {
     factory.setBatchSize(rabbitMQProperties.getBatchSize());
     factory.setConsumerBatchEnabled(true);
     factory.setMessageConverter(compressedMessageConverter);
+    factory.setConcurrentConsumers(rabbitMQProperties.getConcurrency());
+    factory.setMaxConcurrentConsumers(
+        Math.max(rabbitMQProperties.getConcurrency(), rabbitMQProperties.getMaxConcurrency()));
+    // With a prefetch below the batch size every batch would wait for the receive timeout
+    factory.setPrefetchCount(
+        Math.max(rabbitMQProperties.getPrefetchCount(), rabbitMQProperties.getBatchSize()));
+    factory.setReceiveTimeout(rabbitMQProperties.getReceiveTimeout());
+    factory.setConsecutiveActiveTrigger(rabbitMQProperties.getConsecutiveActiveTrigger());
+    factory.setConsecutiveIdleTrigger(rabbitMQProperties.getConsecutiveIdleTrigger());
+    factory.setStartConsumerMinInterval(rabbitMQProperties.getStartConsumerMinInterval());
+    factory.setStopConsumerMinInterval(rabbitMQProperties.getStopConsumerMinInterval());
     return factory;
   }
 
   @Bean
   public RabbitTemplate compressedTemplate(ConnectionFactory connectionFactory,
       MessageCompressionComponent compressedMessageConverter) {
+    if (!connectionFactory.isPublisherConfirms()) {
+      log.warn("Publisher confirms are disabled, digital specimens are published without delivery "
+          + "guarantee. Set spring.rabbitmq.publisher-confirm-type to correlated to enable them");
+    }
     var rabbitTemplate = new RabbitTemplate(connectionFactory);
     rabbitTemplate.setMessageConverter(compressedMessageConverter);
     return rabbitTemplate;
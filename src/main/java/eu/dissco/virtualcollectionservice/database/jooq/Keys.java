@@ -4,7 +4,9 @@
 package eu.dissco.virtualcollectionservice.database.jooq;
 
 
+import eu.dissco.virtualcollectionservice.database.jooq.tables.BackfillJob;
 import eu.dissco.virtualcollectionservice.database.jooq.tables.VirtualCollection;
+import eu.dissco.virtualcollectionservice.database.jooq.tables.records.BackfillJobRecord;
 import eu.dissco.virtualcollectionservice.database.jooq.tables.records.VirtualCollectionRecord;
 
 import org.jooq.TableField;
@@ -24,5 +26,6 @@ public class Keys {
     // UNIQUE and PRIMARY KEY definitions
     // -------------------------------------------------------------------------
 
+    public static final UniqueKey<BackfillJobRecord> BACKFILL_JOB_PKEY = Internal.createUniqueKey(BackfillJob.BACKFILL_JOB, DSL.name("backfill_job_pkey"), new TableField[] { BackfillJob.BACKFILL_JOB.VIRTUAL_COLLECTION_ID, BackfillJob.BACKFILL_JOB.ACTION, BackfillJob.BACKFILL_JOB.SLICE }, true);
     public static final UniqueKey<VirtualCollectionRecord> VIRTUAL_COLLECTION_PKEY = Internal.createUniqueKey(VirtualCollection.VIRTUAL_COLLECTION, DSL.name("virtual_collection_pkey"), new TableField[] { VirtualCollection.VIRTUAL_COLLECTION.ID }, true);
 }
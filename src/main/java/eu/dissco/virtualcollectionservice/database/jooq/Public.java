@@ -4,6 +4,7 @@
 package eu.dissco.virtualcollectionservice.database.jooq;
 
 
+import eu.dissco.virtualcollectionservice.database.jooq.tables.BackfillJob;
 import eu.dissco.virtualcollectionservice.database.jooq.tables.VirtualCollection;
 
 import java.util.Arrays;
@@ -27,6 +28,11 @@ public class Public extends SchemaImpl {
      */
     public static final Public PUBLIC = new Public();
 
+    /**
+     * The table <code>public.backfill_job</code>.
+     */
+    public final BackfillJob BACKFILL_JOB = BackfillJob.BACKFILL_JOB;
+
     /**
      * The table <code>public.virtual_collection</code>.
      */
@@ -48,6 +54,7 @@ public class Public extends SchemaImpl {
     @Override
     public final List<Table<?>> getTables() {
         return Arrays.asList(
+            BackfillJob.BACKFILL_JOB,
             VirtualCollection.VIRTUAL_COLLECTION
         );
     }
@@ -4,6 +4,7 @@
 package eu.dissco.virtualcollectionservice.database.jooq;
 
 
+import eu.dissco.virtualcollectionservice.database.jooq.tables.BackfillJob;
 import eu.dissco.virtualcollectionservice.database.jooq.tables.VirtualCollection;
 
 
@@ -13,6 +14,11 @@ import eu.dissco.virtualcollectionservice.database.jooq.tables.VirtualCollection
 @SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
 public class Tables {
 
+    /**
+     * The table <code>public.backfill_job</code>.
+     */
+    public static final BackfillJob BACKFILL_JOB = BackfillJob.BACKFILL_JOB;
+
     /**
      * The table <code>public.virtual_collection</code>.
      */
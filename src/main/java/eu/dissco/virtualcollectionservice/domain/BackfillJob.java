@@ -0,0 +1,31 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import java.util.List;
+
+/**
+ * Checkpoint of a single slice of a backfill, the cursor holds the sort values of the last
+ * processed page.
+ */
+public record BackfillJob(
+    String virtualCollectionId,
+    VirtualCollectionAction action,
+    int slice,
+    String pointInTimeId,
+    List<FieldValue> cursor,
+    long processed,
+    BackfillStatus status
+) {
+
+  public BackfillJob withCheckpoint(String pointInTimeId, List<FieldValue> cursor,
+      long processed) {
+    return new BackfillJob(virtualCollectionId, action, slice, pointInTimeId, cursor, processed,
+        status);
+  }
+
+  public BackfillJob withStatus(BackfillStatus status) {
+    return new BackfillJob(virtualCollectionId, action, slice, pointInTimeId, cursor, processed,
+        status);
+  }
+
+}
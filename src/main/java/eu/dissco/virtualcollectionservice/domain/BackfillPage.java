@@ -0,0 +1,15 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import java.util.List;
+
+/**
+ * Page of a backfill slice together with the checkpoint after this page, an empty page marks the
+ * end of the slice.
+ */
+public record BackfillPage(
+    BackfillJob backfillJob,
+    List<DigitalSpecimen> results
+) {
+
+}
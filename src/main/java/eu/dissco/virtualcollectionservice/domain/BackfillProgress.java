@@ -0,0 +1,65 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * Progress of a running backfill, the total is counted once at the start of the job. Slices
+ * report their processed results concurrently.
+ */
+public final class BackfillProgress {
+
+  @Getter
+  private final String virtualCollectionId;
+  @Getter
+  private final VirtualCollectionAction action;
+  @Getter
+  private final long total;
+  private final long startProcessed;
+  private final long startTime;
+  private final AtomicLong processed;
+
+  public BackfillProgress(String virtualCollectionId, VirtualCollectionAction action, long total,
+      long processed, long startTime) {
+    this.virtualCollectionId = virtualCollectionId;
+    this.action = action;
+    this.total = total;
+    this.startProcessed = processed;
+    this.startTime = startTime;
+    this.processed = new AtomicLong(processed);
+  }
+
+  public long addProcessed(long results) {
+    return processed.addAndGet(results);
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  public double getProgress() {
+    if (total == 0) {
+      return 1.0;
+    }
+    return Math.min(1.0, (double) processed.get() / total);
+  }
+
+  /**
+   * Estimates the remaining time based on the throughput since the start of this run, results
+   * processed before a resume are not part of the throughput.
+   */
+  public double getEstimatedSecondsRemaining(long now) {
+    var processedThisRun = processed.get() - startProcessed;
+    var remaining = total - processed.get();
+    if (remaining <= 0) {
+      return 0;
+    }
+    if (processedThisRun <= 0) {
+      return Double.NaN;
+    }
+    var elapsedSeconds = (double) (now - startTime) / TimeUnit.SECONDS.toNanos(1);
+    return elapsedSeconds / processedThisRun * remaining;
+  }
+
+}
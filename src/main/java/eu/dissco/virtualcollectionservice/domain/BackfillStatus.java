@@ -0,0 +1,7 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+public enum BackfillStatus {
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
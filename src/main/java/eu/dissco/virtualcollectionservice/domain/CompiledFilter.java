@@ -0,0 +1,77 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, thread-safe representation of a TargetDigitalObjectFilter. The JsonPath expressions
+ * are compiled and the predicate values harmonized once, so evaluating a specimen only has to
+ * read the document. A path that is not present in the document reads as null, so a missing field
+ * is a non-match for EQUALS and IN and a match for NOT.
+ */
+public sealed interface CompiledFilter {
+
+  boolean matches(DocumentContext document);
+
+  private static Object read(DocumentContext document, JsonPath path) {
+    try {
+      return document.read(path);
+    } catch (PathNotFoundException e) {
+      return null;
+    }
+  }
+
+  record EqualsPredicate(String key, JsonPath path, Object value) implements CompiledFilter {
+
+    @Override
+    public boolean matches(DocumentContext document) {
+      return value.equals(read(document, path));
+    }
+  }
+
+  record NotPredicate(String key, JsonPath path, Object value) implements CompiledFilter {
+
+    @Override
+    public boolean matches(DocumentContext document) {
+      return !value.equals(read(document, path));
+    }
+  }
+
+  record InPredicate(String key, JsonPath path, Set<Object> values) implements CompiledFilter {
+
+    @Override
+    public boolean matches(DocumentContext document) {
+      return values.contains(read(document, path));
+    }
+  }
+
+  record AndFilter(List<CompiledFilter> filters) implements CompiledFilter {
+
+    @Override
+    public boolean matches(DocumentContext document) {
+      for (var filter : filters) {
+        if (!filter.matches(document)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  record OrFilter(List<CompiledFilter> filters) implements CompiledFilter {
+
+    @Override
+    public boolean matches(DocumentContext document) {
+      for (var filter : filters) {
+        if (filter.matches(document)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,9 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+
+public record CompiledVirtualCollection(
+    VirtualCollection virtualCollection,
+    CompiledFilter filter) {
+
+}
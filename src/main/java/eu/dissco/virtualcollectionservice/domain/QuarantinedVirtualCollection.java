@@ -0,0 +1,15 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import java.time.Instant;
+
+/**
+ * Virtual collection that is excluded from matching because its filter could not be compiled, or
+ * failed or was too slow during evaluation.
+ */
+public record QuarantinedVirtualCollection(
+    VirtualCollection virtualCollection,
+    String reason,
+    Instant quarantined) {
+
+}
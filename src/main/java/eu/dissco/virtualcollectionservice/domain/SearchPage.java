@@ -0,0 +1,12 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import java.util.List;
+
+public record SearchPage(
+    List<DigitalSpecimen> results,
+    List<FieldValue> searchAfter,
+    String pointInTimeId) {
+
+}
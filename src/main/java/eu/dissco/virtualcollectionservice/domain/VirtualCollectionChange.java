@@ -0,0 +1,11 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import java.time.Instant;
+
+public record VirtualCollectionChange(
+    VirtualCollection virtualCollection,
+    boolean tombstoned,
+    Instant changed) {
+
+}
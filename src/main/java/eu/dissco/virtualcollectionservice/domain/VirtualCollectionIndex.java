@@ -0,0 +1,136 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.JsonPathException;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.AndFilter;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.EqualsPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.InPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.NotPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.OrFilter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from (predicate key, predicate value) to the virtual collections that require
+ * that value. A specimen only has to read the indexed keys once and evaluate the collections that
+ * can possibly match. Collections without a required EQUALS or IN predicate, for example a single
+ * NOT predicate, are kept in a residual list which is always evaluated.
+ */
+public final class VirtualCollectionIndex {
+
+  private static final VirtualCollectionIndex EMPTY = new VirtualCollectionIndex(List.of());
+
+  private final Set<CompiledVirtualCollection> virtualCollections;
+  private final Map<String, IndexedKey> keyIndex = new HashMap<>();
+  private final List<CompiledVirtualCollection> residual = new ArrayList<>();
+
+  private VirtualCollectionIndex(Collection<CompiledVirtualCollection> virtualCollections) {
+    this.virtualCollections = Set.copyOf(virtualCollections);
+    for (var virtualCollection : this.virtualCollections) {
+      var terms = getIndexTerms(virtualCollection.filter());
+      if (terms == null) {
+        residual.add(virtualCollection);
+      } else {
+        for (var term : terms) {
+          keyIndex.computeIfAbsent(term.key(), key -> new IndexedKey(term.path(), new HashMap<>()))
+              .values().computeIfAbsent(term.value(), value -> new ArrayList<>())
+              .add(virtualCollection);
+        }
+      }
+    }
+  }
+
+  public static VirtualCollectionIndex empty() {
+    return EMPTY;
+  }
+
+  public static VirtualCollectionIndex of(
+      Collection<CompiledVirtualCollection> virtualCollections) {
+    return new VirtualCollectionIndex(virtualCollections);
+  }
+
+  /**
+   * Returns the terms of which at least one must be present in a specimen for the filter to match,
+   * or null when no such terms can be derived from the filter.
+   */
+  private static List<IndexTerm> getIndexTerms(CompiledFilter filter) {
+    return switch (filter) {
+      case EqualsPredicate predicate ->
+          List.of(new IndexTerm(predicate.key(), predicate.path(), predicate.value()));
+      case InPredicate predicate -> predicate.values().stream()
+          .map(value -> new IndexTerm(predicate.key(), predicate.path(), value)).toList();
+      case NotPredicate ignored -> null;
+      case AndFilter andFilter -> getMostSelectiveTerms(andFilter.filters());
+      case OrFilter orFilter -> getAllTerms(orFilter.filters());
+    };
+  }
+
+  private static List<IndexTerm> getMostSelectiveTerms(List<CompiledFilter> filters) {
+    List<IndexTerm> mostSelective = null;
+    for (var filter : filters) {
+      var terms = getIndexTerms(filter);
+      if (terms != null && (mostSelective == null || terms.size() < mostSelective.size())) {
+        mostSelective = terms;
+      }
+    }
+    return mostSelective;
+  }
+
+  private static List<IndexTerm> getAllTerms(List<CompiledFilter> filters) {
+    var allTerms = new ArrayList<IndexTerm>();
+    for (var filter : filters) {
+      var terms = getIndexTerms(filter);
+      if (terms == null) {
+        return null;
+      }
+      allTerms.addAll(terms);
+    }
+    return allTerms;
+  }
+
+  public Set<CompiledVirtualCollection> getVirtualCollections() {
+    return virtualCollections;
+  }
+
+  public Collection<CompiledVirtualCollection> findCandidates(DocumentContext document) {
+    if (keyIndex.isEmpty()) {
+      return residual;
+    }
+    var candidates = new LinkedHashSet<>(residual);
+    for (var indexedKey : keyIndex.values()) {
+      var value = readValue(document, indexedKey.path());
+      if (value != null) {
+        candidates.addAll(indexedKey.values().getOrDefault(value, Collections.emptyList()));
+      }
+    }
+    return candidates;
+  }
+
+  private static Object readValue(DocumentContext document, JsonPath path) {
+    try {
+      return document.read(path);
+    } catch (JsonPathException e) {
+      return null;
+    }
+  }
+
+  public int size() {
+    return virtualCollections.size();
+  }
+
+  private record IndexTerm(String key, JsonPath path, Object value) {
+
+  }
+
+  private record IndexedKey(JsonPath path, Map<Object, List<CompiledVirtualCollection>> values) {
+
+  }
+
+}
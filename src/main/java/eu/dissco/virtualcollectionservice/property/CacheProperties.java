@@ -0,0 +1,26 @@
+package eu.dissco.virtualcollectionservice.property;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@ConfigurationProperties("cache")
+public class CacheProperties {
+
+  private boolean deltaRefreshEnabled = true;
+
+  // Interval in seconds, also read by the @Scheduled annotation of the cache
+  @Positive
+  private int deltaRefreshInterval = 10;
+
+  // The delta refresh re-reads changes this far before the last change it has seen, so rows
+  // committed late or with the same timestamp are not missed until the next full reload
+  @NotNull
+  private Duration deltaRefreshOverlap = Duration.ofMinutes(1);
+
+}
@@ -0,0 +1,35 @@
+package eu.dissco.virtualcollectionservice.property;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@ConfigurationProperties("compression")
+public class CompressionProperties {
+
+  // Content encoding of outgoing messages, gzip stays the default until all consumers support more
+  @NotBlank
+  private String contentEncoding = "gzip";
+
+  /*
+   * Messages smaller than this size in bytes are published uncompressed without a content
+   * encoding. Disabled by default, consumers that always decompress can not read these messages.
+   * Only enable it, for example with 512, when all consumers honour the content encoding.
+   */
+  @PositiveOrZero
+  private int minSize = 0;
+
+  /*
+   * Compression level by minimum message size in bytes, for example levels[0]=6 and
+   * levels[1048576]=1 to trade ratio for speed on large messages. The codec default is used when
+   * no level applies.
+   */
+  private Map<Integer, Integer> levels = new TreeMap<>();
+
+}
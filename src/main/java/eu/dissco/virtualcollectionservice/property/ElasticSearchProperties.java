@@ -1,8 +1,13 @@
 package eu.dissco.virtualcollectionservice.property;
 
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -33,4 +38,39 @@ public class ElasticSearchProperties {
   @NotNull
   private int pageSize = 1000;
 
+  // Keep-alive of the point-in-time, renewed with every page
+  @NotBlank
+  private String pointInTimeKeepAlive = "5m";
+
+  // Keep-alive of the point-in-time of a failed backfill, a redelivered request resumes on it. A
+  // backfill that stops without failing, for example when the service is killed, only keeps the
+  // regular keep-alive. Sliced backfills that resume after that restart from the beginning
+  @NotBlank
+  private String pointInTimeResumeKeepAlive = "1h";
+
+  // Number of slices a backfill is split into, each slice is paged concurrently. Throughput
+  // scales up to the number of shards of the index
+  @Positive
+  private int slices = 1;
+
+  // Number of pages fetched ahead of the page being published, bounds the memory of a backfill
+  @Positive
+  private int prefetchPages = 2;
+
+  // Source filtering of the backfill searches per action, the full source is retrieved by default
+  @NotNull
+  private Map<VirtualCollectionAction, SourceFilterProperties> sourceFilters = new EnumMap<>(
+      VirtualCollectionAction.class);
+
+  @Data
+  public static class SourceFilterProperties {
+
+    @NotNull
+    private List<String> includes = new ArrayList<>();
+
+    @NotNull
+    private List<String> excludes = new ArrayList<>();
+
+  }
+
 }
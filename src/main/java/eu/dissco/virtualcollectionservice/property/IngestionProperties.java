@@ -0,0 +1,20 @@
+package eu.dissco.virtualcollectionservice.property;
+
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@ConfigurationProperties("ingestion")
+public class IngestionProperties {
+
+  // Evaluates the events of an ingestion batch concurrently on virtual threads
+  private boolean parallelEvaluationEnabled = false;
+
+  // Maximum number of events of a batch that are evaluated at the same time
+  @Positive
+  private int parallelism = 16;
+
+}
@@ -0,0 +1,30 @@
+package eu.dissco.virtualcollectionservice.property;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Data
+@Validated
+@ConfigurationProperties("quarantine")
+public class QuarantineProperties {
+
+  // Maximum time a single virtual collection filter may take to evaluate a specimen
+  @NotNull
+  private Duration evaluationBudget = Duration.ofMillis(10);
+
+  // Number of consecutive timed evaluations over budget after which the virtual collection is
+  // quarantined, an evaluation within budget resets the count
+  @Positive
+  private int budgetViolations = 3;
+
+  // On average one in this many evaluations is timed against the budget, 1 times every evaluation
+  // and 0 disables the budget check
+  @PositiveOrZero
+  private int budgetSampleInterval = 10;
+
+}
@@ -2,6 +2,7 @@ package eu.dissco.virtualcollectionservice.property;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
@@ -25,4 +26,43 @@ public class RabbitMqProperties {
 
   @Positive
   private int batchSize = 500;
+
+  // Consumers of the ingestion queue, scaled between the minimum and maximum on the queue's backlog
+  @Positive
+  private int concurrency = 1;
+
+  // Scaling is opt-in, with several consumers updates of a specimen can be published out of order
+  @Positive
+  private int maxConcurrency = 1;
+
+  // Unacknowledged messages per consumer, raised to the batch size so a full batch can be fetched
+  @Positive
+  private int prefetchCount = 1000;
+
+  // Time in milliseconds to wait for more messages before a partial batch is handed to the listener
+  @Positive
+  private long receiveTimeout = 1000;
+
+  // Consecutive full batches after which a consumer is added, up to the maximum concurrency
+  @Positive
+  private int consecutiveActiveTrigger = 10;
+
+  // Consecutive receive timeouts after which a consumer is stopped, down to the concurrency
+  @Positive
+  private int consecutiveIdleTrigger = 10;
+
+  // Minimum time in milliseconds between starting consumers
+  @Positive
+  private long startConsumerMinInterval = 10000;
+
+  // Minimum time in milliseconds between stopping consumers
+  @Positive
+  private long stopConsumerMinInterval = 60000;
+
+  // Only used when publisher confirms are enabled (spring.rabbitmq.publisher-confirm-type=correlated)
+  @Positive
+  private long publishConfirmTimeout = 10000;
+
+  @PositiveOrZero
+  private int publishRetries = 3;
 }
@@ -0,0 +1,123 @@
+package eu.dissco.virtualcollectionservice.repository;
+
+import static eu.dissco.virtualcollectionservice.database.jooq.Tables.BACKFILL_JOB;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.dissco.virtualcollectionservice.database.jooq.tables.records.BackfillJobRecord;
+import eu.dissco.virtualcollectionservice.domain.BackfillJob;
+import eu.dissco.virtualcollectionservice.domain.BackfillStatus;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
+import eu.dissco.virtualcollectionservice.exception.DisscoJsonBMappingException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jooq.JSONB;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class BackfillJobRepository {
+
+  private final DSLContext context;
+  private final ObjectMapper objectMapper;
+
+  public List<BackfillJob> getBackfillJobs(String virtualCollectionId,
+      VirtualCollectionAction action) {
+    return context.selectFrom(BACKFILL_JOB)
+        .where(BACKFILL_JOB.VIRTUAL_COLLECTION_ID.eq(virtualCollectionId))
+        .and(BACKFILL_JOB.ACTION.eq(action.name()))
+        .orderBy(BACKFILL_JOB.SLICE)
+        .fetch(this::mapRecordToBackfillJob);
+  }
+
+  /**
+   * Replaces all previous jobs of the virtual collection and action with the new jobs.
+   */
+  public void createBackfillJobs(List<BackfillJob> backfillJobs) {
+    var first = backfillJobs.getFirst();
+    var now = Instant.now();
+    context.transaction(configuration -> {
+      var transactionContext = DSL.using(configuration);
+      transactionContext.deleteFrom(BACKFILL_JOB)
+          .where(BACKFILL_JOB.VIRTUAL_COLLECTION_ID.eq(first.virtualCollectionId()))
+          .and(BACKFILL_JOB.ACTION.eq(first.action().name()))
+          .execute();
+      transactionContext.batchInsert(backfillJobs.stream()
+          .map(backfillJob -> mapBackfillJobToRecord(backfillJob, now)).toList()).execute();
+    });
+  }
+
+  public void updateBackfillJob(BackfillJob backfillJob) {
+    context.update(BACKFILL_JOB)
+        .set(BACKFILL_JOB.POINT_IN_TIME_ID, backfillJob.pointInTimeId())
+        .set(BACKFILL_JOB.CURSOR, mapCursorToJsonb(backfillJob.cursor()))
+        .set(BACKFILL_JOB.PROCESSED, backfillJob.processed())
+        .set(BACKFILL_JOB.STATUS, backfillJob.status().name())
+        .set(BACKFILL_JOB.MODIFIED, Instant.now())
+        .where(BACKFILL_JOB.VIRTUAL_COLLECTION_ID.eq(backfillJob.virtualCollectionId()))
+        .and(BACKFILL_JOB.ACTION.eq(backfillJob.action().name()))
+        .and(BACKFILL_JOB.SLICE.eq(backfillJob.slice()))
+        .execute();
+  }
+
+  private BackfillJobRecord mapBackfillJobToRecord(BackfillJob backfillJob, Instant now) {
+    return new BackfillJobRecord(backfillJob.virtualCollectionId(), backfillJob.action().name(),
+        backfillJob.slice(), backfillJob.pointInTimeId(), mapCursorToJsonb(backfillJob.cursor()),
+        backfillJob.processed(), backfillJob.status().name(), now, now);
+  }
+
+  private BackfillJob mapRecordToBackfillJob(BackfillJobRecord dbRecord) {
+    return new BackfillJob(dbRecord.getVirtualCollectionId(),
+        VirtualCollectionAction.valueOf(dbRecord.getAction()), dbRecord.getSlice(),
+        dbRecord.getPointInTimeId(), mapJsonbToCursor(dbRecord.getCursor()),
+        dbRecord.getProcessed(), BackfillStatus.valueOf(dbRecord.getStatus()));
+  }
+
+  private JSONB mapCursorToJsonb(List<FieldValue> cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    var values = cursor.stream().map(FieldValue::_get).toList();
+    try {
+      return JSONB.jsonb(objectMapper.writeValueAsString(values));
+    } catch (JsonProcessingException e) {
+      throw new DisscoJsonBMappingException("Unable to map cursor to jsonb", e);
+    }
+  }
+
+  private List<FieldValue> mapJsonbToCursor(JSONB value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      var cursor = new ArrayList<FieldValue>();
+      for (var node : objectMapper.readTree(value.data())) {
+        cursor.add(mapNodeToFieldValue(node));
+      }
+      return cursor;
+    } catch (JsonProcessingException e) {
+      throw new DisscoJsonBMappingException("Unable to map cursor from jsonb", e);
+    }
+  }
+
+  private static FieldValue mapNodeToFieldValue(JsonNode node) {
+    if (node.isIntegralNumber()) {
+      return FieldValue.of(node.asLong());
+    } else if (node.isNumber()) {
+      return FieldValue.of(node.asDouble());
+    } else if (node.isBoolean()) {
+      return FieldValue.of(node.asBoolean());
+    } else if (node.isNull()) {
+      return FieldValue.NULL;
+    }
+    return FieldValue.of(node.asText());
+  }
+}
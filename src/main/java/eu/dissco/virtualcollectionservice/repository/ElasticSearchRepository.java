@@ -1,44 +1,136 @@
 package eu.dissco.virtualcollectionservice.repository;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import eu.dissco.virtualcollectionservice.domain.SearchPage;
 import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties;
+import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties.SourceFilterProperties;
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+@Slf4j
 @Repository
-@AllArgsConstructor
 public class ElasticSearchRepository {
 
   private static final String SORT_BY = "dcterms:identifier.keyword";
+  private static final String TIEBREAKER = "_shard_doc";
   private final ElasticsearchClient client;
   private final ElasticSearchProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Timer pageTimer;
 
-  public List<JsonNode> retrieveObjects(String lastId, String index, Query query)
-      throws IOException {
+  public ElasticSearchRepository(ElasticsearchClient client, ElasticSearchProperties properties,
+      MeterRegistry meterRegistry) {
+    this.client = client;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.pageTimer = Timer.builder("elasticsearch.page")
+        .description("Time to retrieve and deserialize a page of specimens from Elasticsearch")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * Opens a point-in-time on the index, all pages of a backfill are retrieved from this consistent
+   * view of the index.
+   */
+  public String openPointInTime(String index) throws IOException {
+    return client.openPointInTime(o -> o.index(index)
+        .keepAlive(k -> k.time(properties.getPointInTimeKeepAlive()))).id();
+  }
+
+  /**
+   * Checks whether a stored point-in-time can still be used, it expires when it has not been
+   * accessed within its keep-alive.
+   */
+  public boolean isPointInTimeAlive(String pointInTimeId) throws IOException {
+    return keepPointInTimeAlive(pointInTimeId, properties.getPointInTimeKeepAlive());
+  }
+
+  /**
+   * Renews the keep-alive of the point-in-time, returns false when it has already expired.
+   */
+  public boolean keepPointInTimeAlive(String pointInTimeId, String keepAlive) throws IOException {
+    try {
+      client.search(s -> s.pit(p -> p.id(pointInTimeId)
+              .keepAlive(k -> k.time(keepAlive)))
+          .size(0), ObjectNode.class);
+      return true;
+    } catch (ElasticsearchException e) {
+      if (e.status() == 404) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  public void closePointInTime(String pointInTimeId) {
+    try {
+      client.closePointInTime(c -> c.id(pointInTimeId));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to close point-in-time, it will expire after its keep-alive", e);
+    }
+  }
+
+  /**
+   * Counts the documents matching the query once, pages do not track the total number of hits.
+   */
+  public long countObjects(String index, Query query) throws IOException {
+    return client.count(c -> c.index(index).query(query)).count();
+  }
+
+  /**
+   * Retrieves the next page of the point-in-time. When a slice is provided only the documents of
+   * that slice are returned, the number of slices is configured in the properties. Hits are
+   * deserialized directly into digital specimens, optionally limited by the source filter.
+   */
+  public SearchPage retrieveObjects(Query query, String pointInTimeId, Integer slice,
+      List<FieldValue> searchAfter, SourceFilterProperties sourceFilter) throws IOException {
     var searchRequestBuilder = new SearchRequest.Builder()
-        .index(index)
         .query(query)
-        .trackTotalHits(t -> t.enabled(Boolean.TRUE))
+        .pit(p -> p.id(pointInTimeId)
+            .keepAlive(k -> k.time(properties.getPointInTimeKeepAlive())))
+        .trackTotalHits(t -> t.enabled(Boolean.FALSE))
         .size(properties.getPageSize())
-        .sort(s -> s.field(f -> f.field(SORT_BY).order(SortOrder.Desc)));
-    if (lastId != null) {
-      searchRequestBuilder
-          .searchAfter(sa -> sa.stringValue(lastId));
+        .sort(s -> s.field(f -> f.field(SORT_BY).order(SortOrder.Desc)))
+        .sort(s -> s.field(f -> f.field(TIEBREAKER).order(SortOrder.Asc)));
+    if (slice != null) {
+      searchRequestBuilder.slice(s -> s.id(String.valueOf(slice)).max(properties.getSlices()));
+    }
+    if (sourceFilter != null) {
+      searchRequestBuilder.source(s -> s.filter(f -> f.includes(sourceFilter.getIncludes())
+          .excludes(sourceFilter.getExcludes())));
+    }
+    if (searchAfter != null && !searchAfter.isEmpty()) {
+      searchRequestBuilder.searchAfter(searchAfter);
+    }
+    var sample = Timer.start(meterRegistry);
+    SearchResponse<DigitalSpecimen> searchResult;
+    try {
+      searchResult = client.search(searchRequestBuilder.build(), DigitalSpecimen.class);
+    } finally {
+      sample.stop(pageTimer);
     }
-    var searchResult = client.search(searchRequestBuilder.build(), ObjectNode.class);
-    return searchResult.hits().hits().stream()
+    var hits = searchResult.hits().hits();
+    var results = hits.stream()
         .map(Hit::source)
         .filter(Objects::nonNull)
-        .map(JsonNode.class::cast)
         .toList();
+    var lastSortValues = hits.isEmpty() ? List.<FieldValue>of() : hits.getLast().sort();
+    return new SearchPage(results, lastSortValues,
+        Objects.requireNonNullElse(searchResult.pitId(), pointInTimeId));
   }
 }
@@ -4,14 +4,21 @@ import static eu.dissco.virtualcollectionservice.database.jooq.Tables.VIRTUAL_CO
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionChange;
 import eu.dissco.virtualcollectionservice.exception.DisscoJsonBMappingException;
 import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
+import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jooq.DSLContext;
 import org.jooq.JSONB;
+import org.jooq.Record1;
+import org.jooq.Record3;
+import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 
 @Slf4j
@@ -29,6 +36,31 @@ public class VirtualCollectionRepository {
             jsonbRecord.getValue(VIRTUAL_COLLECTION.DATA))));
   }
 
+  public Optional<Instant> getLatestChange() {
+    return context.select(
+            DSL.max(DSL.greatest(VIRTUAL_COLLECTION.MODIFIED, VIRTUAL_COLLECTION.TOMBSTONED)))
+        .from(VIRTUAL_COLLECTION)
+        .fetchOptional(Record1::value1);
+  }
+
+  public List<VirtualCollectionChange> getVirtualCollectionsChangedSince(Instant since) {
+    return context.select(VIRTUAL_COLLECTION.DATA, VIRTUAL_COLLECTION.MODIFIED,
+            VIRTUAL_COLLECTION.TOMBSTONED)
+        .from(VIRTUAL_COLLECTION)
+        .where(VIRTUAL_COLLECTION.MODIFIED.gt(since))
+        .or(VIRTUAL_COLLECTION.TOMBSTONED.gt(since))
+        .fetch(this::mapRecordToVirtualCollectionChange);
+  }
+
+  private VirtualCollectionChange mapRecordToVirtualCollectionChange(
+      Record3<JSONB, Instant, Instant> dbRecord) {
+    var tombstoned = dbRecord.value3();
+    var changed = tombstoned != null && tombstoned.isAfter(dbRecord.value2()) ? tombstoned
+        : dbRecord.value2();
+    return new VirtualCollectionChange(mapRecordToVirtualCollection(dbRecord.value1()),
+        tombstoned != null, changed);
+  }
+
   private VirtualCollection mapRecordToVirtualCollection(JSONB value) {
     try {
       return objectMapper.readValue(value.data(), VirtualCollection.class);
@@ -67,4 +67,20 @@ public class AbstractProcessingService {
     }
   }
 
+  /**
+   * Removes the relationship to the virtual collection, returns whether the specimen changed.
+   */
+  protected boolean removeVirtualCollection(DigitalSpecimen digitalSpecimen,
+      String virtualCollectionId) {
+    var removed = digitalSpecimen.getOdsHasEntityRelationships().removeIf(
+        relationship -> HAS_VIRTUAL_COLLECTION.equals(relationship.getDwcRelationshipOfResource())
+            && virtualCollectionId.equals(relationship.getDwcRelatedResourceID()));
+    if (!removed) {
+      log.warn(
+          "Digital specimen with id: {} has no relationship to virtual collection with id: {}. Skipping removal.",
+          digitalSpecimen.getId(), virtualCollectionId);
+    }
+    return removed;
+  }
+
 }
@@ -5,9 +5,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.dissco.virtualcollectionservice.component.SpecimenEvaluationComponent;
 import eu.dissco.virtualcollectionservice.component.VirtualCollectionCacheComponent;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
 import eu.dissco.virtualcollectionservice.property.ApplicationProperties;
+import eu.dissco.virtualcollectionservice.property.IngestionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -18,36 +29,129 @@ public class DigitalSpecimenProcessingService extends AbstractProcessingService
   private final VirtualCollectionCacheComponent cache;
   private final RabbitMqPublisherService publisherService;
   private final SpecimenEvaluationComponent specimenEvaluationComponent;
+  // Only created when parallel evaluation is enabled
+  private final ExecutorService executor;
+  private final Semaphore permits;
+  private final Counter failedEventsCounter;
 
   public DigitalSpecimenProcessingService(ObjectMapper objectMapper,
       ApplicationProperties applicationProperties, VirtualCollectionCacheComponent cache,
       RabbitMqPublisherService publisherService,
-      SpecimenEvaluationComponent specimenEvaluationComponent) {
+      SpecimenEvaluationComponent specimenEvaluationComponent,
+      IngestionProperties ingestionProperties, MeterRegistry meterRegistry) {
     super(objectMapper, applicationProperties);
     this.cache = cache;
     this.publisherService = publisherService;
     this.specimenEvaluationComponent = specimenEvaluationComponent;
+    if (ingestionProperties.isParallelEvaluationEnabled()) {
+      this.executor = Executors.newVirtualThreadPerTaskExecutor();
+      this.permits = new Semaphore(ingestionProperties.getParallelism());
+    } else {
+      this.executor = null;
+      this.permits = null;
+    }
+    this.failedEventsCounter = Counter.builder("ingestion.events.failed")
+        .description("Number of ingestion events that failed evaluation and moved to the DLQ")
+        .register(meterRegistry);
   }
 
+  /**
+   * Evaluates the events against the virtual collections and publishes the matched events as a
+   * single batch. All events are evaluated against the same snapshot of the cache. An event that
+   * fails is moved to the DLQ on its own, the rest of the batch is still processed.
+   */
+  public void handleIngestionEvents(List<DigitalSpecimenEvent> events) {
+    var index = cache.getIndex();
+    var matchedEvents = executor == null || events.size() < 2
+        ? evaluateEvents(events, index) : evaluateEventsConcurrently(events, index);
+    if (!matchedEvents.isEmpty()) {
+      publisherService.publishDigitalSpecimens(matchedEvents);
+    }
+  }
+
+  private List<DigitalSpecimenEvent> evaluateEvents(List<DigitalSpecimenEvent> events,
+      VirtualCollectionIndex index) {
+    var matchedEvents = new ArrayList<DigitalSpecimenEvent>();
+    for (var event : events) {
+      if (evaluateEvent(event, index)) {
+        matchedEvents.add(event);
+      }
+    }
+    return matchedEvents;
+  }
 
-  public void handleIngestionEvents(List<DigitalSpecimenEvent> events)
-      throws JsonProcessingException {
+  /**
+   * Evaluates each event on its own virtual thread, the semaphore caps how many are evaluated at
+   * the same time. The matched events keep the order of the batch.
+   */
+  private List<DigitalSpecimenEvent> evaluateEventsConcurrently(List<DigitalSpecimenEvent> events,
+      VirtualCollectionIndex index) {
+    var futures = new ArrayList<Future<Boolean>>(events.size());
     for (var event : events) {
-      for (var virtualCollection : cache.getCache()) {
-        var specimen = event.digitalSpecimenWrapper().attributes();
-        if (specimenEvaluationComponent.evaluateSpecimen(specimen,
-            virtualCollection.getOdsHasTargetDigitalObjectFilter())) {
-          addVirtualCollection(specimen, virtualCollection.getId(),
-              URI.create(virtualCollection.getId()));
-          try {
-            publisherService.publishDigitalSpecimen(event);
-          } catch (JsonProcessingException e) {
-            log.error(
-                "Manual action needed. Error publishing digital specimen with id: {}, error: {}",
-                event.digitalSpecimenWrapper().attributes().getId(), e.getMessage());
-          }
+      futures.add(executor.submit(() -> {
+        permits.acquire();
+        try {
+          return evaluateEvent(event, index);
+        } finally {
+          permits.release();
+        }
+      }));
+    }
+    var matchedEvents = new ArrayList<DigitalSpecimenEvent>();
+    try {
+      for (int i = 0; i < events.size(); i++) {
+        if (Boolean.TRUE.equals(futures.get(i).get())) {
+          matchedEvents.add(events.get(i));
         }
       }
+    } catch (ExecutionException e) {
+      // Failing events are handled per event, this is only reached by errors
+      futures.forEach(future -> future.cancel(true));
+      throw new IllegalStateException("Failed to evaluate ingestion batch", e.getCause());
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while evaluating ingestion batch", e);
+    }
+    return matchedEvents;
+  }
+
+  /**
+   * Returns whether the event matched any virtual collection. When the evaluation fails the event
+   * is moved to the DLQ and is not published.
+   */
+  private boolean evaluateEvent(DigitalSpecimenEvent event, VirtualCollectionIndex index) {
+    var specimen = event.digitalSpecimenWrapper().attributes();
+    try {
+      var document = specimenEvaluationComponent.parseSpecimen(specimen);
+      var matches = specimenEvaluationComponent.findMatchingVirtualCollections(document, index);
+      for (var virtualCollection : matches) {
+        addVirtualCollection(specimen, virtualCollection.getId(),
+            URI.create(virtualCollection.getId()));
+      }
+      return !matches.isEmpty();
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.error("Moving digital specimen with id: {} to DLQ, failed to evaluate event",
+          specimen.getId(), e);
+      failedEventsCounter.increment();
+      sendEventDLQ(event, e);
+      return false;
+    }
+  }
+
+  private void sendEventDLQ(DigitalSpecimenEvent event, Exception exception) {
+    try {
+      publisherService.sendMessageDLQ(objectMapper.writeValueAsBytes(event), exception);
+    } catch (JsonProcessingException e) {
+      log.error("Manual action needed. Unable to move digital specimen with id: {} to DLQ",
+          event.digitalSpecimenWrapper().attributes().getId(), e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
     }
   }
 }
@@ -1,41 +1,94 @@
 package eu.dissco.virtualcollectionservice.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import eu.dissco.virtualcollectionservice.component.MessageCompressionComponent;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
 import eu.dissco.virtualcollectionservice.domain.VirtualCollectionEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class RabbitMqConsumerService {
 
   private final ObjectMapper objectMapper;
   private final VirtualCollectionProcessingService virtualCollectionProcessingService;
   private final DigitalSpecimenProcessingService digitalSpecimenProcessingService;
   private final RabbitMqPublisherService publisherService;
+  private final MessageCompressionComponent messageCompressionComponent;
+  private final ObjectReader digitalSpecimenEventReader;
+  private final MeterRegistry meterRegistry;
+  private final Timer deserializationTimer;
+  private final Timer processingTimer;
+  private final DistributionSummary batchSizeSummary;
+  private final Counter failedMessagesCounter;
 
+  public RabbitMqConsumerService(ObjectMapper objectMapper,
+      VirtualCollectionProcessingService virtualCollectionProcessingService,
+      DigitalSpecimenProcessingService digitalSpecimenProcessingService,
+      RabbitMqPublisherService publisherService,
+      MessageCompressionComponent messageCompressionComponent, MeterRegistry meterRegistry) {
+    this.objectMapper = objectMapper;
+    this.virtualCollectionProcessingService = virtualCollectionProcessingService;
+    this.digitalSpecimenProcessingService = digitalSpecimenProcessingService;
+    this.publisherService = publisherService;
+    this.messageCompressionComponent = messageCompressionComponent;
+    this.digitalSpecimenEventReader = objectMapper.readerFor(DigitalSpecimenEvent.class);
+    this.meterRegistry = meterRegistry;
+    this.deserializationTimer = Timer.builder("ingestion.batch.deserialization")
+        .description("Time to decompress and parse a batch of ingestion messages")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.processingTimer = Timer.builder("ingestion.batch.processing")
+        .description("Time to evaluate and publish a batch of ingestion events")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.batchSizeSummary = DistributionSummary.builder("ingestion.batch.size")
+        .description("Number of messages per ingestion batch")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.failedMessagesCounter = Counter.builder("ingestion.messages.failed")
+        .description("Number of ingestion messages that could not be parsed and moved to the DLQ")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Receives the raw messages, each body is parsed straight from its (decompressing) stream into
+   * an event.
+   */
   @RabbitListener(queues = {
       "${rabbitmq.ingestion-queue-name:virtual-collection-ingestion-queue}"}, containerFactory = "consumerBatchContainerFactory")
-  public void getMessages(@Payload List<String> messages) throws JsonProcessingException {
-    var events = messages.stream().map(message -> {
-      try {
-        return objectMapper.readValue(message, DigitalSpecimenEvent.class);
-      } catch (JsonProcessingException e) {
-        log.error("Moving message to DLQ, failed to parse event message: {}", message, e);
-        publisherService.sendMessageDLQ(message);
-        return null;
+  public void getMessages(List<Message> messages) {
+    batchSizeSummary.record(messages.size());
+    var sample = Timer.start(meterRegistry);
+    var events = new ArrayList<DigitalSpecimenEvent>(messages.size());
+    for (var message : messages) {
+      try (var body = messageCompressionComponent.getBodyStream(message)) {
+        events.add(digitalSpecimenEventReader.readValue(body));
+      } catch (IOException e) {
+        log.error("Moving message to DLQ, failed to parse event message: {}",
+            message.getMessageProperties().getMessageId(), e);
+        failedMessagesCounter.increment();
+        publisherService.sendRawMessageDLQ(message, e);
       }
-    }).filter(Objects::nonNull).toList();
-    digitalSpecimenProcessingService.handleIngestionEvents(events);
+    }
+    sample.stop(deserializationTimer);
+    sample = Timer.start(meterRegistry);
+    try {
+      digitalSpecimenProcessingService.handleIngestionEvents(events);
+    } finally {
+      sample.stop(processingTimer);
+    }
   }
 
   @RabbitListener(queues = {
@@ -4,27 +4,161 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
 import eu.dissco.virtualcollectionservice.property.RabbitMqProperties;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class RabbitMqPublisherService {
 
+  public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+  public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+
   private final RabbitTemplate rabbitTemplate;
   private final RabbitMqProperties rabbitProperties;
   private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final Timer publishTimer;
+  private final DistributionSummary publishBytesSummary;
+  private final Counter dlqCounter;
+
+  public RabbitMqPublisherService(RabbitTemplate rabbitTemplate,
+      RabbitMqProperties rabbitProperties, ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.rabbitProperties = rabbitProperties;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.publishTimer = Timer.builder("rabbitmq.publish")
+        .description("Time to publish a batch of digital specimens, including the confirms")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.publishBytesSummary = DistributionSummary.builder("rabbitmq.publish.bytes")
+        .description("Serialized size of the published digital specimens before compression")
+        .baseUnit(BaseUnits.BYTES)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.dlqCounter = Counter.builder("rabbitmq.publish.dlq")
+        .description("Number of unconfirmed digital specimens moved to the DLQ")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Publishes the events over a single channel. When publisher confirms are enabled it waits for
+   * the broker to confirm the batch, only the nacked or unconfirmed messages are retried and after
+   * the last retry they are moved to the DLQ.
+   */
+  public void publishDigitalSpecimens(List<DigitalSpecimenEvent> digitalSpecimenEvents) {
+    var sample = Timer.start(meterRegistry);
+    try {
+      publishSerializedDigitalSpecimens(serializeDigitalSpecimens(digitalSpecimenEvents));
+    } finally {
+      sample.stop(publishTimer);
+    }
+  }
 
-  public void publishDigitalSpecimen(DigitalSpecimenEvent digitalSpecimenEvent)
-      throws JsonProcessingException {
-    log.info("Publishing digital specimen with id: {}",
-        digitalSpecimenEvent.digitalSpecimenWrapper().attributes().getId());
-    rabbitTemplate.convertAndSend(rabbitProperties.getExchangeName(),
-        rabbitProperties.getRoutingKeyName(),
-        objectMapper.writeValueAsString(digitalSpecimenEvent));
+  /**
+   * Serializes straight to UTF-8, the message converter compresses the bytes without encoding an
+   * intermediate String.
+   */
+  private List<byte[]> serializeDigitalSpecimens(
+      List<DigitalSpecimenEvent> digitalSpecimenEvents) {
+    var messages = new ArrayList<byte[]>(digitalSpecimenEvents.size());
+    for (var digitalSpecimenEvent : digitalSpecimenEvents) {
+      try {
+        var message = objectMapper.writeValueAsBytes(digitalSpecimenEvent);
+        publishBytesSummary.record(message.length);
+        messages.add(message);
+      } catch (JsonProcessingException e) {
+        log.error(
+            "Manual action needed. Error publishing digital specimen with id: {}, error: {}",
+            digitalSpecimenEvent.digitalSpecimenWrapper().attributes().getId(), e.getMessage());
+      }
+    }
+    return messages;
+  }
+
+  private void publishSerializedDigitalSpecimens(List<byte[]> messages) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    log.info("Publishing {} digital specimens", messages.size());
+    if (!rabbitTemplate.getConnectionFactory().isPublisherConfirms()) {
+      rabbitTemplate.invoke(operations -> {
+        messages.forEach(message -> operations.convertAndSend(rabbitProperties.getExchangeName(),
+            rabbitProperties.getRoutingKeyName(), message));
+        return null;
+      });
+      return;
+    }
+    List<byte[]> unconfirmed = messages;
+    for (int attempt = 0; attempt <= rabbitProperties.getPublishRetries() && !unconfirmed.isEmpty();
+        attempt++) {
+      if (attempt > 0) {
+        log.warn("Retrying {} unconfirmed digital specimens, attempt: {}", unconfirmed.size(),
+            attempt);
+      }
+      unconfirmed = publishWithConfirms(unconfirmed);
+    }
+    if (!unconfirmed.isEmpty()) {
+      log.error("Moving {} unconfirmed digital specimens to DLQ", unconfirmed.size());
+      dlqCounter.increment(unconfirmed.size());
+      var exception = new AmqpException("Digital specimen was not confirmed by the broker after "
+          + (rabbitProperties.getPublishRetries() + 1) + " attempts");
+      unconfirmed.forEach(message -> sendMessageDLQ(message, exception));
+    }
+  }
+
+  private List<byte[]> publishWithConfirms(List<byte[]> messages) {
+    return rabbitTemplate.invoke(operations -> {
+      var correlations = new ArrayList<CorrelationData>(messages.size());
+      for (var message : messages) {
+        var correlationData = new CorrelationData();
+        operations.convertAndSend(rabbitProperties.getExchangeName(),
+            rabbitProperties.getRoutingKeyName(), message, correlationData);
+        correlations.add(correlationData);
+      }
+      var deadline = System.nanoTime()
+          + TimeUnit.MILLISECONDS.toNanos(rabbitProperties.getPublishConfirmTimeout());
+      var unconfirmed = new ArrayList<byte[]>();
+      for (int i = 0; i < messages.size(); i++) {
+        if (!isConfirmed(correlations.get(i), deadline)) {
+          unconfirmed.add(messages.get(i));
+        }
+      }
+      return unconfirmed;
+    });
+  }
+
+  private static boolean isConfirmed(CorrelationData correlationData, long deadline) {
+    try {
+      var confirm = correlationData.getFuture()
+          .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      if (!confirm.isAck()) {
+        log.warn("Digital specimen was nacked by the broker, reason: {}", confirm.getReason());
+      }
+      return confirm.isAck();
+    } catch (ExecutionException | TimeoutException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
   }
 
   public void sendMessageDLQ(Object message) {
@@ -32,4 +166,31 @@ public class RabbitMqPublisherService {
         rabbitProperties.getIngestionDlqKeyName(), message);
   }
 
+  /**
+   * Moves the message to the DLQ with the reason of the failure in its headers.
+   */
+  public void sendMessageDLQ(Object message, Exception exception) {
+    rabbitTemplate.convertAndSend(rabbitProperties.getIngestionDlqExchangeName(),
+        rabbitProperties.getIngestionDlqKeyName(), message, dlqMessage -> {
+          setExceptionHeaders(dlqMessage.getMessageProperties(), exception);
+          return dlqMessage;
+        });
+  }
+
+  /**
+   * Moves the message to the DLQ as received, including its content encoding, with the reason of
+   * the failure in its headers.
+   */
+  public void sendRawMessageDLQ(Message message, Exception exception) {
+    setExceptionHeaders(message.getMessageProperties(), exception);
+    rabbitTemplate.send(rabbitProperties.getIngestionDlqExchangeName(),
+        rabbitProperties.getIngestionDlqKeyName(), message);
+  }
+
+  private static void setExceptionHeaders(MessageProperties messageProperties,
+      Exception exception) {
+    messageProperties.setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(exception.getMessage()));
+    messageProperties.setHeader(EXCEPTION_TYPE_HEADER, exception.getClass().getName());
+  }
+
 }
@@ -1,22 +1,39 @@
 package eu.dissco.virtualcollectionservice.service;
 
 import static eu.dissco.virtualcollectionservice.component.ElasticSearchQueryParser.parseTargetFilterToQuery;
+import static eu.dissco.virtualcollectionservice.component.ElasticSearchQueryParser.parseVirtualCollectionRelationshipQuery;
 
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.dissco.virtualcollectionservice.component.BackfillProgressComponent;
+import eu.dissco.virtualcollectionservice.component.VirtualCollectionCacheComponent;
+import eu.dissco.virtualcollectionservice.domain.BackfillJob;
+import eu.dissco.virtualcollectionservice.domain.BackfillPage;
+import eu.dissco.virtualcollectionservice.domain.BackfillProgress;
+import eu.dissco.virtualcollectionservice.domain.BackfillStatus;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenWrapper;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
 import eu.dissco.virtualcollectionservice.domain.VirtualCollectionEvent;
 import eu.dissco.virtualcollectionservice.property.ApplicationProperties;
+import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties;
+import eu.dissco.virtualcollectionservice.repository.BackfillJobRepository;
 import eu.dissco.virtualcollectionservice.repository.ElasticSearchRepository;
 import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
-import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -24,68 +41,276 @@ import org.springframework.stereotype.Service;
 @Service
 public class VirtualCollectionProcessingService extends AbstractProcessingService {
 
-  private static final String ID_FIELD = "dcterms:identifier";
+  private static final String DIGITAL_SPECIMEN_INDEX = "digital-specimen";
 
   private final ElasticSearchRepository elasticSearchRepository;
   private final RabbitMqPublisherService rabbitMqPublisherService;
+  private final VirtualCollectionCacheComponent cache;
+  private final ElasticSearchProperties elasticSearchProperties;
+  private final BackfillJobRepository backfillJobRepository;
+  private final BackfillProgressComponent backfillProgressComponent;
 
 
   public VirtualCollectionProcessingService(ObjectMapper objectMapper,
       ElasticSearchRepository elasticSearchRepository,
       RabbitMqPublisherService rabbitMqPublisherService,
-      ApplicationProperties applicationProperties) {
+      ApplicationProperties applicationProperties, VirtualCollectionCacheComponent cache,
+      ElasticSearchProperties elasticSearchProperties,
+      BackfillJobRepository backfillJobRepository,
+      BackfillProgressComponent backfillProgressComponent) {
     super(objectMapper, applicationProperties);
     this.elasticSearchRepository = elasticSearchRepository;
     this.rabbitMqPublisherService = rabbitMqPublisherService;
+    this.cache = cache;
+    this.elasticSearchProperties = elasticSearchProperties;
+    this.backfillJobRepository = backfillJobRepository;
+    this.backfillProgressComponent = backfillProgressComponent;
   }
 
   public void handleMessage(VirtualCollectionEvent virtualCollectionEvent) throws IOException {
     log.info("Received a {} request for virtual collection with id: {}",
         virtualCollectionEvent.action(), virtualCollectionEvent.virtualCollection().getId());
-    var filter = virtualCollectionEvent.virtualCollection().getOdsHasTargetDigitalObjectFilter();
-    var elasticQuery = parseTargetFilterToQuery(filter);
-    var totalResult = processRequest(elasticQuery, virtualCollectionEvent.virtualCollection());
+    updateCache(virtualCollectionEvent);
+    var virtualCollection = virtualCollectionEvent.virtualCollection();
+    var virtualCollectionId = virtualCollection.getId();
+    var totalResult = switch (virtualCollectionEvent.action()) {
+      case CREATE -> {
+        var virtualCollectionURI = URI.create(virtualCollectionId);
+        yield processRequest(virtualCollectionId, virtualCollectionEvent.action(),
+            parseTargetFilterToQuery(virtualCollection.getOdsHasTargetDigitalObjectFilter()),
+            digitalSpecimen -> {
+              addVirtualCollection(digitalSpecimen, virtualCollectionId, virtualCollectionURI);
+              return true;
+            });
+      }
+      case DELETE -> processRequest(virtualCollectionId, virtualCollectionEvent.action(),
+          parseVirtualCollectionRelationshipQuery(virtualCollectionId),
+          digitalSpecimen -> removeVirtualCollection(digitalSpecimen, virtualCollectionId));
+    };
     log.info("Successfully finished processing all results: {} ", totalResult);
   }
 
-  private long processRequest(Query elasticQuery, VirtualCollection virtualCollection)
-      throws IOException {
-    boolean keepSearching = true;
-    long resultsProcessed = 0;
-    String lastId = null;
-    while (keepSearching) {
-      log.info("Paginating over elastic, resultsProcessed: {}", resultsProcessed);
-      var searchResult = elasticSearchRepository.retrieveObjects(lastId, "digital-specimen",
-          elasticQuery);
-      if (searchResult.isEmpty()) {
-        keepSearching = false;
+  private void updateCache(VirtualCollectionEvent virtualCollectionEvent) {
+    var virtualCollection = virtualCollectionEvent.virtualCollection();
+    switch (virtualCollectionEvent.action()) {
+      case CREATE -> cache.addVirtualCollection(virtualCollection);
+      case DELETE -> cache.removeVirtualCollection(virtualCollection.getId());
+    }
+  }
+
+  /**
+   * Paginates over all specimens matching the query, the update is applied to each specimen and
+   * the specimen is republished when the update reports a change. All pages are retrieved from a
+   * single point-in-time, when more than one slice is configured each slice is paged concurrently.
+   * Every slice is checkpointed after each page, so a redelivered request resumes from the last
+   * processed page instead of starting over. The point-in-time of a failed backfill is kept open
+   * for the resume keep-alive, so the slices can resume on it.
+   */
+  private long processRequest(String virtualCollectionId, VirtualCollectionAction action,
+      Query elasticQuery, Predicate<DigitalSpecimen> update) throws IOException {
+    var backfillJobs = getBackfillJobs(virtualCollectionId, action);
+    var pointInTimeId = backfillJobs.getFirst().pointInTimeId();
+    BackfillProgress progress = null;
+    var completed = false;
+    try {
+      progress = backfillProgressComponent.start(virtualCollectionId, action,
+          elasticSearchRepository.countObjects(DIGITAL_SPECIMEN_INDEX, elasticQuery),
+          backfillJobs.stream().mapToLong(BackfillJob::processed).sum());
+      var processed = processBackfillJobs(elasticQuery, backfillJobs, update, progress);
+      completed = true;
+      return processed;
+    } finally {
+      if (progress != null) {
+        backfillProgressComponent.finish(progress);
+      }
+      if (completed) {
+        elasticSearchRepository.closePointInTime(pointInTimeId);
       } else {
-        processSearchResult(searchResult, virtualCollection);
-        lastId = searchResult.getLast().get(ID_FIELD).asText();
-        resultsProcessed += searchResult.size();
+        keepPointInTimeForResume(pointInTimeId);
       }
     }
-    return resultsProcessed;
   }
 
-  private void processSearchResult(List<JsonNode> searchResult,
-      VirtualCollection virtualCollection) {
-    log.info("Processing {} results", searchResult.size());
-    var virtualCollectionId = virtualCollection.getId();
-    var virtualCollectionURI = URI.create(virtualCollectionId);
-    searchResult.stream().map(json -> objectMapper.convertValue(json, DigitalSpecimen.class))
-        .forEach(digitalSpecimen -> {
-          log.info("Processing digital specimen with id: {}", digitalSpecimen.getId());
-          try {
-            addVirtualCollection(digitalSpecimen, virtualCollectionId, virtualCollectionURI);
-            var digitalSpecimenEvent = wrapIntoEvent(digitalSpecimen);
-            rabbitMqPublisherService.publishDigitalSpecimen(digitalSpecimenEvent);
-          } catch (JsonProcessingException e) {
-            log.error(
-                "Manual action needed. Error publishing digital specimen with id: {}, error: {}",
-                digitalSpecimen.getId(), e.getMessage());
+  private void keepPointInTimeForResume(String pointInTimeId) {
+    try {
+      elasticSearchRepository.keepPointInTimeAlive(pointInTimeId,
+          elasticSearchProperties.getPointInTimeResumeKeepAlive());
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to extend the point-in-time of the failed backfill, it will expire after "
+          + "its keep-alive", e);
+    }
+  }
+
+  private List<BackfillJob> getBackfillJobs(String virtualCollectionId,
+      VirtualCollectionAction action) throws IOException {
+    var slices = elasticSearchProperties.getSlices();
+    var existingJobs = backfillJobRepository.getBackfillJobs(virtualCollectionId, action);
+    var isUnfinished = existingJobs.stream()
+        .anyMatch(backfillJob -> backfillJob.status() != BackfillStatus.COMPLETED);
+    if (isUnfinished && existingJobs.size() == slices) {
+      return resumeBackfillJobs(existingJobs);
+    } else if (isUnfinished) {
+      log.warn("Slice configuration changed, restarting backfill for virtual collection: {}",
+          virtualCollectionId);
+    }
+    return startBackfillJobs(virtualCollectionId, action, slices);
+  }
+
+  private List<BackfillJob> resumeBackfillJobs(List<BackfillJob> backfillJobs)
+      throws IOException {
+    var first = backfillJobs.getFirst();
+    if (elasticSearchRepository.isPointInTimeAlive(first.pointInTimeId())) {
+      log.info("Resuming backfill for virtual collection: {} from {} processed results",
+          first.virtualCollectionId(),
+          backfillJobs.stream().mapToLong(BackfillJob::processed).sum());
+      return backfillJobs;
+    }
+    if (backfillJobs.size() > 1) {
+      // Slices are bound to the point-in-time, the cursors of an expired one can not be reused
+      log.warn("Point-in-time expired, restarting sliced backfill for virtual collection: {}",
+          first.virtualCollectionId());
+      return startBackfillJobs(first.virtualCollectionId(), first.action(), backfillJobs.size());
+    }
+    // The cursor sorts on the unique identifier first, so it remains valid on a new point-in-time
+    log.info("Point-in-time expired, resuming backfill for virtual collection: {} on a new one",
+        first.virtualCollectionId());
+    var pointInTimeId = elasticSearchRepository.openPointInTime(DIGITAL_SPECIMEN_INDEX);
+    var backfillJob = first.withCheckpoint(pointInTimeId, first.cursor(), first.processed())
+        .withStatus(BackfillStatus.RUNNING);
+    backfillJobRepository.createBackfillJobs(List.of(backfillJob));
+    return List.of(backfillJob);
+  }
+
+  private List<BackfillJob> startBackfillJobs(String virtualCollectionId,
+      VirtualCollectionAction action, int slices) throws IOException {
+    var pointInTimeId = elasticSearchRepository.openPointInTime(DIGITAL_SPECIMEN_INDEX);
+    var backfillJobs = new ArrayList<BackfillJob>();
+    for (int slice = 0; slice < slices; slice++) {
+      backfillJobs.add(new BackfillJob(virtualCollectionId, action, slice, pointInTimeId, null, 0,
+          BackfillStatus.RUNNING));
+    }
+    backfillJobRepository.createBackfillJobs(backfillJobs);
+    return backfillJobs;
+  }
+
+  /**
+   * Runs the backfill as a pipeline. One fetch worker per slice retrieves the next pages ahead into
+   * a bounded queue while the calling thread publishes the current page. The queue bounds the
+   * memory and blocks the fetch workers when publishing falls behind. A page is only checkpointed
+   * after it has been published.
+   */
+  private long processBackfillJobs(Query elasticQuery, List<BackfillJob> backfillJobs,
+      Predicate<DigitalSpecimen> update, BackfillProgress progress) throws IOException {
+    var sliced = backfillJobs.size() > 1;
+    var checkpoints = new HashMap<Integer, BackfillJob>();
+    backfillJobs.forEach(backfillJob -> checkpoints.put(backfillJob.slice(), backfillJob));
+    var runningJobs = backfillJobs.stream()
+        .filter(backfillJob -> backfillJob.status() != BackfillStatus.COMPLETED).toList();
+    if (runningJobs.isEmpty()) {
+      return sumProcessed(checkpoints);
+    }
+    if (sliced) {
+      log.info("Processing request in {} slices", runningJobs.size());
+    }
+    var pages = new ArrayBlockingQueue<BackfillPage>(elasticSearchProperties.getPrefetchPages());
+    try (var executor = Executors.newFixedThreadPool(runningJobs.size())) {
+      var futures = new ArrayList<Future<Void>>();
+      for (var backfillJob : runningJobs) {
+        futures.add(executor.submit(() -> fetchPages(elasticQuery, backfillJob, sliced, pages)));
+      }
+      try {
+        var remainingSlices = runningJobs.size();
+        while (remainingSlices > 0) {
+          var page = pages.poll(1, TimeUnit.SECONDS);
+          if (page == null) {
+            checkFetchFailures(futures);
+          } else if (page.results().isEmpty()) {
+            var completedJob = page.backfillJob().withStatus(BackfillStatus.COMPLETED);
+            backfillJobRepository.updateBackfillJob(completedJob);
+            checkpoints.put(completedJob.slice(), completedJob);
+            remainingSlices--;
+          } else {
+            processSearchResult(page.results(), update);
+            backfillJobRepository.updateBackfillJob(page.backfillJob());
+            checkpoints.put(page.backfillJob().slice(), page.backfillJob());
+            backfillProgressComponent.update(progress, page.results().size());
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        futures.forEach(future -> future.cancel(true));
+        markFailed(checkpoints);
+        throw e;
+      } catch (InterruptedException e) {
+        futures.forEach(future -> future.cancel(true));
+        markFailed(checkpoints);
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while processing backfill", e);
+      }
+    }
+    return sumProcessed(checkpoints);
+  }
+
+  private Void fetchPages(Query elasticQuery, BackfillJob backfillJob, boolean sliced,
+      BlockingQueue<BackfillPage> pages) throws IOException, InterruptedException {
+    var slice = sliced ? Integer.valueOf(backfillJob.slice()) : null;
+    var sourceFilter = elasticSearchProperties.getSourceFilters().get(backfillJob.action());
+    while (true) {
+      log.debug("Paginating over elastic, slice: {}, resultsProcessed: {}", slice,
+          backfillJob.processed());
+      var searchPage = elasticSearchRepository.retrieveObjects(elasticQuery,
+          backfillJob.pointInTimeId(), slice, backfillJob.cursor(), sourceFilter);
+      if (searchPage.results().isEmpty()) {
+        pages.put(new BackfillPage(backfillJob, List.of()));
+        return null;
+      }
+      backfillJob = backfillJob.withCheckpoint(searchPage.pointInTimeId(),
+          searchPage.searchAfter(), backfillJob.processed() + searchPage.results().size());
+      pages.put(new BackfillPage(backfillJob, searchPage.results()));
+    }
+  }
+
+  private static void checkFetchFailures(List<Future<Void>> futures)
+      throws IOException, InterruptedException {
+    for (var future : futures) {
+      if (future.isDone()) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException ioException) {
+            throw ioException;
+          } else if (e.getCause() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
           }
-        });
+          throw new IllegalStateException("Failed to fetch backfill page", e.getCause());
+        }
+      }
+    }
+  }
+
+  private void markFailed(Map<Integer, BackfillJob> checkpoints) {
+    checkpoints.values().stream()
+        .filter(backfillJob -> backfillJob.status() != BackfillStatus.COMPLETED)
+        .forEach(backfillJob -> backfillJobRepository.updateBackfillJob(
+            backfillJob.withStatus(BackfillStatus.FAILED)));
+  }
+
+  private static long sumProcessed(Map<Integer, BackfillJob> checkpoints) {
+    return checkpoints.values().stream().mapToLong(BackfillJob::processed).sum();
+  }
+
+  private void processSearchResult(List<DigitalSpecimen> searchResult,
+      Predicate<DigitalSpecimen> update) {
+    log.info("Processing {} results", searchResult.size());
+    var digitalSpecimenEvents = new ArrayList<DigitalSpecimenEvent>(searchResult.size());
+    for (var digitalSpecimen : searchResult) {
+      log.debug("Processing digital specimen with id: {}", digitalSpecimen.getId());
+      if (update.test(digitalSpecimen)) {
+        digitalSpecimenEvents.add(wrapIntoEvent(digitalSpecimen));
+      }
+    }
+    if (!digitalSpecimenEvents.isEmpty()) {
+      rabbitMqPublisherService.publishDigitalSpecimens(digitalSpecimenEvents);
+    }
   }
 
   private DigitalSpecimenEvent wrapIntoEvent(DigitalSpecimen digitalSpecimen) {
@@ -0,0 +1,248 @@
+package eu.dissco.virtualcollectionservice.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Gzip compression with pooled Deflaters, Inflaters and output buffers. The gzip framing is written
+ * and parsed here, so no native zlib state is allocated per message. The pools are bounded and not
+ * bound to a thread, so short-lived virtual threads reuse the same instances. Bodies this parser
+ * does not support, for example concatenated gzip members, fall back to a GZIPInputStream.
+ */
+public class GzipUtils {
+
+  // Deflate compresses by at most this ratio, a larger size in the trailer is forged or corrupt
+  public static final int MAX_DEFLATE_RATIO = 1032;
+  // Messages above this size are inflated into a growing buffer instead of a presized array
+  public static final int MAX_PRESIZED_SIZE = 64 * 1024 * 1024;
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int HEADER_SIZE = 10;
+  private static final int TRAILER_SIZE = 8;
+  private static final byte[] HEADER = {
+      (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final int RESERVED_FLAGS = 0xe0;
+  private static final int INITIAL_BUFFER_SIZE = 8192;
+  // Larger buffers are not retained, so a single large message does not pin memory on a thread
+  private static final int MAX_RETAINED_BUFFER_SIZE = 4 * 1024 * 1024;
+
+  // Instances beyond the pool size are released after use instead of being retained
+  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+  private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+  private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+  private static final BlockingQueue<byte[]> BUFFERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+  private GzipUtils() {
+  }
+
+  public static byte[] compress(byte[] message) {
+    return compress(message, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  public static byte[] compress(byte[] message, int level) {
+    var deflater = acquireDeflater();
+    // Deflate expands incompressible input only slightly, so this is normally large enough
+    var buffer = acquireBuffer(HEADER_SIZE + message.length + message.length / 1000 + 64
+        + TRAILER_SIZE);
+    try {
+      deflater.setLevel(level);
+      deflater.setInput(message);
+      deflater.finish();
+      var crc = new CRC32();
+      crc.update(message);
+      System.arraycopy(HEADER, 0, buffer, 0, HEADER_SIZE);
+      var length = HEADER_SIZE;
+      while (!deflater.finished()) {
+        if (length >= buffer.length - TRAILER_SIZE) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        length += deflater.deflate(buffer, length, buffer.length - TRAILER_SIZE - length);
+      }
+      writeIntLE(buffer, length, (int) crc.getValue());
+      writeIntLE(buffer, length + 4, message.length);
+      length += TRAILER_SIZE;
+      return Arrays.copyOf(buffer, length);
+    } finally {
+      releaseDeflater(deflater);
+      releaseBuffer(buffer);
+    }
+  }
+
+  public static byte[] decompress(byte[] compressed) throws IOException {
+    var headerLength = readHeaderLength(compressed);
+    if (headerLength < 0) {
+      return decompressWithStream(compressed);
+    }
+    // The trailer holds the uncompressed size, which lets us inflate into an exact array. It is
+    // not trusted beyond what the compressed data can produce
+    var expectedSize = readIntLE(compressed, compressed.length - 4) & 0xffffffffL;
+    if (!isPlausibleSize(expectedSize, compressed.length - headerLength - TRAILER_SIZE)) {
+      return decompressWithStream(compressed);
+    }
+    var result = new byte[(int) expectedSize];
+    var inflater = acquireInflater();
+    inflater.setInput(compressed, headerLength, compressed.length - headerLength);
+    try {
+      var length = 0;
+      while (!inflater.finished()) {
+        if (length == result.length) {
+          if (inflater.inflate(new byte[1]) > 0 || !inflater.finished()) {
+            return decompressWithStream(compressed);
+          }
+          break;
+        }
+        var inflated = inflater.inflate(result, length, result.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new EOFException("Unexpected end of gzip input");
+        }
+        length += inflated;
+      }
+      if (length != result.length || inflater.getRemaining() != TRAILER_SIZE) {
+        return decompressWithStream(compressed);
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException("Invalid gzip data: " + e.getMessage());
+    } finally {
+      releaseInflater(inflater);
+    }
+    var crc = new CRC32();
+    crc.update(result);
+    if ((int) crc.getValue() != readIntLE(compressed, compressed.length - TRAILER_SIZE)) {
+      throw new ZipException("Corrupt gzip trailer");
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether a size read from the message can be used to presize the output. It has to be
+   * producible from the compressed length and small enough to allocate up front.
+   */
+  public static boolean isPlausibleSize(long size, long compressedLength) {
+    return size <= MAX_PRESIZED_SIZE && size <= compressedLength * MAX_DEFLATE_RATIO;
+  }
+
+  /**
+   * Returns the length of the gzip header, or -1 when the header uses flags that are not supported
+   * by this parser.
+   */
+  private static int readHeaderLength(byte[] compressed) throws IOException {
+    if (compressed.length < HEADER_SIZE + TRAILER_SIZE
+        || readShortLE(compressed, 0) != GZIP_MAGIC) {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (compressed[2] != Deflater.DEFLATED) {
+      throw new ZipException("Unsupported compression method");
+    }
+    var flags = compressed[3] & 0xff;
+    if ((flags & RESERVED_FLAGS) != 0) {
+      return -1;
+    }
+    var position = HEADER_SIZE;
+    if ((flags & FEXTRA) == FEXTRA) {
+      position += 2 + readShortLE(compressed, position);
+    }
+    if ((flags & FNAME) == FNAME) {
+      position = skipZeroTerminated(compressed, position);
+    }
+    if ((flags & FCOMMENT) == FCOMMENT) {
+      position = skipZeroTerminated(compressed, position);
+    }
+    if ((flags & FHCRC) == FHCRC) {
+      position += 2;
+    }
+    if (position > compressed.length - TRAILER_SIZE) {
+      throw new EOFException("Unexpected end of gzip header");
+    }
+    return position;
+  }
+
+  private static byte[] decompressWithStream(byte[] compressed) throws IOException {
+    try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return inputStream.readAllBytes();
+    }
+  }
+
+  private static Deflater acquireDeflater() {
+    var deflater = DEFLATERS.poll();
+    return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+  }
+
+  private static void releaseDeflater(Deflater deflater) {
+    deflater.reset();
+    if (!DEFLATERS.offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  private static Inflater acquireInflater() {
+    var inflater = INFLATERS.poll();
+    return inflater != null ? inflater : new Inflater(true);
+  }
+
+  private static void releaseInflater(Inflater inflater) {
+    inflater.reset();
+    if (!INFLATERS.offer(inflater)) {
+      inflater.end();
+    }
+  }
+
+  private static byte[] acquireBuffer(int size) {
+    var buffer = BUFFERS.poll();
+    if (buffer == null) {
+      buffer = new byte[INITIAL_BUFFER_SIZE];
+    }
+    if (buffer.length < size) {
+      buffer = new byte[Math.max(size, buffer.length * 2)];
+    }
+    return buffer;
+  }
+
+  private static void releaseBuffer(byte[] buffer) {
+    if (buffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+      BUFFERS.offer(buffer);
+    }
+  }
+
+  private static int skipZeroTerminated(byte[] bytes, int position) throws EOFException {
+    while (position < bytes.length) {
+      if (bytes[position++] == 0) {
+        return position;
+      }
+    }
+    throw new EOFException("Unexpected end of gzip header");
+  }
+
+  private static int readShortLE(byte[] bytes, int position) throws EOFException {
+    if (position + 2 > bytes.length) {
+      throw new EOFException("Unexpected end of gzip header");
+    }
+    return (bytes[position] & 0xff) | (bytes[position + 1] & 0xff) << 8;
+  }
+
+  private static int readIntLE(byte[] bytes, int position) {
+    return (bytes[position] & 0xff) | (bytes[position + 1] & 0xff) << 8
+        | (bytes[position + 2] & 0xff) << 16 | (bytes[position + 3] & 0xff) << 24;
+  }
+
+  private static void writeIntLE(byte[] bytes, int position, int value) {
+    bytes[position] = (byte) value;
+    bytes[position + 1] = (byte) (value >> 8);
+    bytes[position + 2] = (byte) (value >> 16);
+    bytes[position + 3] = (byte) (value >> 24);
+  }
+}
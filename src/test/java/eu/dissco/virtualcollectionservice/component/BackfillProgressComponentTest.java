@@ -0,0 +1,75 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BackfillProgressComponentTest {
+
+  private static final String VIRTUAL_COLLECTION_ID = "https://hdl.handle.net/TEST/XXX-XXX-XXX";
+
+  private SimpleMeterRegistry meterRegistry;
+  private BackfillProgressComponent backfillProgressComponent;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    backfillProgressComponent = new BackfillProgressComponent(meterRegistry);
+  }
+
+  @Test
+  void testProgress() {
+    // Given
+    var progress = backfillProgressComponent.start(VIRTUAL_COLLECTION_ID,
+        VirtualCollectionAction.CREATE, 400, 100);
+
+    // When
+    backfillProgressComponent.update(progress, 100);
+
+    // Then
+    assertThat(meterRegistry.get("backfill.progress")
+        .tag("virtualCollection", VIRTUAL_COLLECTION_ID).gauge().value()).isEqualTo(0.5);
+    assertThat(meterRegistry.get("backfill.remaining").gauge().value()).isPositive();
+  }
+
+  @Test
+  void testEstimatedSecondsRemaining() {
+    // Given
+    var progress = backfillProgressComponent.start(VIRTUAL_COLLECTION_ID,
+        VirtualCollectionAction.CREATE, 400, 100);
+
+    // When
+    progress.addProcessed(100);
+
+    // Then
+    assertThat(progress.getEstimatedSecondsRemaining(System.nanoTime())).isPositive();
+  }
+
+  @Test
+  void testNoMatches() {
+    // When
+    var progress = backfillProgressComponent.start(VIRTUAL_COLLECTION_ID,
+        VirtualCollectionAction.DELETE, 0, 0);
+
+    // Then
+    assertThat(progress.getProgress()).isEqualTo(1.0);
+    assertThat(progress.getEstimatedSecondsRemaining(System.nanoTime())).isZero();
+  }
+
+  @Test
+  void testFinish() {
+    // Given
+    var progress = backfillProgressComponent.start(VIRTUAL_COLLECTION_ID,
+        VirtualCollectionAction.CREATE, 400, 0);
+
+    // When
+    backfillProgressComponent.finish(progress);
+
+    // Then
+    assertThat(meterRegistry.find("backfill.progress").gauges()).isEmpty();
+    assertThat(meterRegistry.find("backfill.remaining").gauges()).isEmpty();
+  }
+}
@@ -16,6 +16,7 @@ import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
 import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
 import java.util.List;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -79,6 +80,26 @@ class ElasticSearchQueryParserTest {
     assertThat(result.toString()).hasToString(expected.toString());
   }
 
+  @Test
+  void testParseVirtualCollectionRelationshipQuery() {
+    // Given
+    var virtualCollectionId = "https://hdl.handle.net/TEST/XXX-XXX-XXX";
+    var expected = new Query.Builder().bool(b -> b.must(List.of(
+        new Query.Builder().term(
+            t -> t.field("ods:hasEntityRelationships.dwc:relationshipOfResource.keyword")
+                .value(FieldValue.of("hasVirtualCollection"))).build(),
+        new Query.Builder().term(
+            t -> t.field("ods:hasEntityRelationships.dwc:relatedResourceID.keyword")
+                .value(FieldValue.of(virtualCollectionId))).build()))).build();
+
+    // When
+    var result = ElasticSearchQueryParser.parseVirtualCollectionRelationshipQuery(
+        virtualCollectionId);
+
+    // Then
+    assertThat(result.toString()).hasToString(expected.toString());
+  }
+
   @ParameterizedTest
   @MethodSource("eu.dissco.virtualcollectionservice.utils.TestUtils#illegalFilters")
   void testInvalidParseQuery(TargetDigitalObjectFilter objectFilter) {
@@ -3,9 +3,17 @@ package eu.dissco.virtualcollectionservice.component;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import eu.dissco.virtualcollectionservice.property.CompressionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.support.converter.MessageConversionException;
@@ -13,10 +21,12 @@ import org.springframework.amqp.support.converter.MessageConversionException;
 class MessageCompressionComponentTest {
 
   private MessageCompressionComponent messageCompressionComponent;
+  private MeterRegistry meterRegistry;
 
   @BeforeEach
   void setUp() {
-    messageCompressionComponent = new MessageCompressionComponent();
+    meterRegistry = new SimpleMeterRegistry();
+    messageCompressionComponent = givenMessageCompressionComponent("gzip");
   }
 
   @Test
@@ -36,6 +46,156 @@ class MessageCompressionComponentTest {
     assertThat(decompressedMessage).isEqualTo(messageString);
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"gzip", "zstd", "lz4"})
+  void testCompressMessageWithCodec(String contentEncoding) {
+    // Given
+    var component = givenMessageCompressionComponent(contentEncoding);
+
+    // When
+    var compressedMessage = component.toMessage(givenMessage(), new MessageProperties());
+
+    // Then
+    assertThat(compressedMessage.getMessageProperties().getContentEncoding()).isEqualTo(
+        contentEncoding);
+    assertThat(compressedMessage.getBody()).hasSizeLessThan(
+        givenMessage().getBytes(StandardCharsets.UTF_8).length);
+    assertThat(messageCompressionComponent.fromMessage(compressedMessage)).isEqualTo(
+        givenMessage());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"zstd", "lz4"})
+  void testGetBodyStreamWithCodec(String contentEncoding) throws IOException {
+    // Given
+    var compressedMessage = givenMessageCompressionComponent(contentEncoding).toMessage(
+        givenMessage(), new MessageProperties());
+
+    // When
+    try (var result = messageCompressionComponent.getBodyStream(compressedMessage)) {
+
+      // Then
+      assertThat(new String(result.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+          givenMessage());
+    }
+  }
+
+  @Test
+  void testUnsupportedContentEncoding() {
+    // Given
+    var messageProperties = new MessageProperties();
+    messageProperties.setContentEncoding("br");
+    var message = new Message(givenMessage().getBytes(StandardCharsets.UTF_8), messageProperties);
+
+    // When / Then
+    assertThrows(MessageConversionException.class,
+        () -> messageCompressionComponent.fromMessage(message));
+    assertThrows(IOException.class, () -> messageCompressionComponent.getBodyStream(message));
+  }
+
+  @Test
+  void testUnsupportedConfiguredCodec() {
+    // Given
+    var properties = new CompressionProperties();
+    properties.setContentEncoding("br");
+    var codecs = List.<CompressionCodec>of(new GzipCompressionCodec());
+
+    // When / Then
+    assertThrows(IllegalStateException.class,
+        () -> new MessageCompressionComponent(codecs, properties, meterRegistry));
+  }
+
+  @Test
+  void testSmallMessageCompressedByDefault() throws IOException {
+    // Given
+    var messageString = "{\"id\": \"small\"}";
+
+    // When
+    var message = messageCompressionComponent.toMessage(messageString, new MessageProperties());
+
+    // Then
+    assertThat(message.getMessageProperties().getContentEncoding()).isEqualTo("gzip");
+    assertThat(messageCompressionComponent.fromMessage(message)).isEqualTo(messageString);
+  }
+
+  @Test
+  void testSmallMessageNotCompressed() throws IOException {
+    // Given
+    var messageString = "{\"id\": \"small\"}";
+    var properties = new CompressionProperties();
+    properties.setMinSize(512);
+    messageCompressionComponent = givenMessageCompressionComponent(properties);
+
+    // When
+    var message = messageCompressionComponent.toMessage(messageString, new MessageProperties());
+
+    // Then
+    assertThat(message.getMessageProperties().getContentEncoding()).isNull();
+    assertThat(message.getMessageProperties().getContentType()).isEqualTo("application/json");
+    assertThat(message.getBody()).isEqualTo(messageString.getBytes(StandardCharsets.UTF_8));
+    assertThat(messageCompressionComponent.fromMessage(message)).isEqualTo(messageString);
+    try (var result = messageCompressionComponent.getBodyStream(message)) {
+      assertThat(new String(result.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+          messageString);
+    }
+    assertThat(meterRegistry.get("message.compression.bytes.out").tag("encoding", "identity")
+        .counter().count()).isEqualTo(messageString.length());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"gzip", "zstd", "lz4"})
+  void testCompressMessageWithLevel(String contentEncoding) {
+    // Given
+    var properties = new CompressionProperties();
+    properties.setContentEncoding(contentEncoding);
+    properties.setLevels(Map.of(0, 1, 1024 * 1024, 9));
+    var component = givenMessageCompressionComponent(properties);
+
+    // When
+    var compressedMessage = component.toMessage(givenMessage(), new MessageProperties());
+
+    // Then
+    assertThat(compressedMessage.getMessageProperties().getContentEncoding()).isEqualTo(
+        contentEncoding);
+    assertThat(messageCompressionComponent.fromMessage(compressedMessage)).isEqualTo(
+        givenMessage());
+  }
+
+  @Test
+  void testCompressionMetrics() {
+    // Given
+    var messageLength = givenMessage().getBytes(StandardCharsets.UTF_8).length;
+
+    // When
+    var compressedMessage = messageCompressionComponent.toMessage(givenMessage(),
+        new MessageProperties());
+
+    // Then
+    assertThat(meterRegistry.get("message.compression.bytes.in").tag("encoding", "gzip")
+        .counter().count()).isEqualTo(messageLength);
+    assertThat(meterRegistry.get("message.compression.bytes.out").tag("encoding", "gzip")
+        .counter().count()).isEqualTo(compressedMessage.getBody().length);
+    var ratio = meterRegistry.get("message.compression.ratio").summary();
+    assertThat(ratio.count()).isEqualTo(1);
+    assertThat(ratio.totalAmount()).isEqualTo(
+        (double) compressedMessage.getBody().length / messageLength);
+  }
+
+  @Test
+  void testCompressBytesMessage() {
+    // Given
+    var message = givenMessage().getBytes(StandardCharsets.UTF_8);
+
+    // When
+    var compressedMessage = messageCompressionComponent.toMessage(message,
+        new MessageProperties());
+
+    // Then
+    assertThat(compressedMessage.getMessageProperties().getContentEncoding()).isEqualTo("gzip");
+    assertThat(messageCompressionComponent.fromMessage(compressedMessage)).isEqualTo(
+        givenMessage());
+  }
+
   @Test
   void testInvalidMessage() {
     // Given
@@ -61,6 +221,49 @@ class MessageCompressionComponentTest {
     assertThat(result).isEqualTo(givenMessage());
   }
 
+  @Test
+  void testGetBodyStream() throws IOException {
+    // Given
+    var compressedMessage = messageCompressionComponent.toMessage(givenMessage(),
+        new MessageProperties());
+
+    // When
+    try (var result = messageCompressionComponent.getBodyStream(compressedMessage)) {
+
+      // Then
+      assertThat(new String(result.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+          givenMessage());
+    }
+  }
+
+  @Test
+  void testGetBodyStreamPlain() throws IOException {
+    // Given
+    var message = new Message(givenMessage().getBytes(StandardCharsets.UTF_8),
+        new MessageProperties());
+
+    // When
+    try (var result = messageCompressionComponent.getBodyStream(message)) {
+
+      // Then
+      assertThat(new String(result.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(
+          givenMessage());
+    }
+  }
+
+  private MessageCompressionComponent givenMessageCompressionComponent(String contentEncoding) {
+    var properties = new CompressionProperties();
+    properties.setContentEncoding(contentEncoding);
+    return givenMessageCompressionComponent(properties);
+  }
+
+  private MessageCompressionComponent givenMessageCompressionComponent(
+      CompressionProperties properties) {
+    return new MessageCompressionComponent(
+        List.of(new GzipCompressionCodec(), new ZstdCompressionCodec(), new Lz4CompressionCodec()),
+        properties, meterRegistry);
+  }
+
   private String givenMessage() {
     return """
         {
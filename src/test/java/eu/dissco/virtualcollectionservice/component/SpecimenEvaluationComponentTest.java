@@ -2,29 +2,57 @@ package eu.dissco.virtualcollectionservice.component;
 
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenAndFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenCompiledVirtualCollection;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimen;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenEqualsListFilter;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenInFilter;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenNotFilter;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenOrFilter;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenTargetDigitalObjectFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
+import eu.dissco.virtualcollectionservice.property.QuarantineProperties;
 import eu.dissco.virtualcollectionservice.schema.OdsHasPredicate;
 import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
 import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
+@ExtendWith(MockitoExtension.class)
 class SpecimenEvaluationComponentTest {
 
+  @Mock
+  private VirtualCollectionCacheComponent cache;
+  @Mock
+  private DocumentContext document;
   private SpecimenEvaluationComponent component;
+  private MeterRegistry meterRegistry;
 
   public static Stream<Arguments> evaluateSpecimenProvider() {
     return Stream.of(
@@ -54,7 +82,19 @@ class SpecimenEvaluationComponentTest {
 
   @BeforeEach
   void setUp() {
-    component = new SpecimenEvaluationComponent(MAPPER);
+    meterRegistry = new SimpleMeterRegistry();
+    component = new SpecimenEvaluationComponent(MAPPER, cache, new QuarantineProperties(),
+        meterRegistry);
+  }
+
+  private static CompiledVirtualCollection givenOtherVirtualCollection(
+      OdsPredicateType predicateType, String key, Object value) {
+    return new CompiledVirtualCollection(
+        givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY", "Other collection"),
+        SpecimenFilterCompiler.compileFilter(new TargetDigitalObjectFilter()
+            .withOdsPredicateType(predicateType)
+            .withOdsPredicateKey(key)
+            .withOdsPredicateValue(value)));
   }
 
   @ParameterizedTest
@@ -62,26 +102,212 @@ class SpecimenEvaluationComponentTest {
   void testEvaluateSpecimen(TargetDigitalObjectFilter filter, boolean expected)
       throws JsonProcessingException {
     // Given
-    var specimen = givenDigitalSpecimen();
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var compiledFilter = SpecimenFilterCompiler.compileFilter(filter);
 
     // When
-    var result = component.evaluateSpecimen(specimen, filter);
+    var result = compiledFilter.matches(document);
 
     // Then
     assertThat(result).isEqualTo(expected);
   }
 
-  @ParameterizedTest
-  @MethodSource("eu.dissco.virtualcollectionservice.utils.TestUtils#illegalFilters")
-  void testInvalidParseQuery(TargetDigitalObjectFilter objectFilter)
+  @Test
+  void testFindMatchingVirtualCollections() throws JsonProcessingException {
+    // Given
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var matchingCollection = givenCompiledVirtualCollection();
+    var otherCollection = givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY",
+        "Other collection");
+    var nonMatchingCollection = new CompiledVirtualCollection(otherCollection,
+        SpecimenFilterCompiler.compileFilter(new TargetDigitalObjectFilter()
+            .withOdsPredicateType(OdsPredicateType.EQUALS)
+            .withOdsPredicateKey("$['ods:topicDiscipline']")
+            .withOdsPredicateValue("Zoology")));
+
+    // When
+    var result = component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(matchingCollection, nonMatchingCollection)));
+
+    // Then
+    assertThat(result).containsExactly(matchingCollection.virtualCollection());
+    assertThat(meterRegistry.get("virtual.collection.matches")
+        .tag("virtualCollection", matchingCollection.virtualCollection().getId())
+        .counter().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("specimen.evaluation").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("specimen.evaluation.candidates").summary().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testRemoveStaleMatchCounters() throws JsonProcessingException {
+    // Given
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var virtualCollection = givenCompiledVirtualCollection();
+    component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(virtualCollection)));
+    given(cache.getIndex()).willReturn(VirtualCollectionIndex.of(List.of()));
+
+    // When
+    component.removeStaleMatchCounters();
+
+    // Then
+    assertThat(meterRegistry.find("virtual.collection.matches")
+        .tag("virtualCollection", virtualCollection.virtualCollection().getId())
+        .counter()).isNull();
+  }
+
+  @Test
+  void testRemoveStaleMatchCountersKeepsCachedCollections() throws JsonProcessingException {
+    // Given
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var index = VirtualCollectionIndex.of(List.of(givenCompiledVirtualCollection()));
+    component.findMatchingVirtualCollections(document, index);
+    given(cache.getIndex()).willReturn(index);
+
+    // When
+    component.removeStaleMatchCounters();
+
+    // Then
+    assertThat(meterRegistry.get("virtual.collection.matches").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void testFindMatchingVirtualCollectionsQuarantinesFailingFilter()
       throws JsonProcessingException {
     // Given
-    var specimen = givenDigitalSpecimen();
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var matchingCollection = givenCompiledVirtualCollection();
+    var failingCollection = givenOtherVirtualCollection(OdsPredicateType.NOT,
+        "$['ods:specimenName'].avg()", 1);
 
     // When
-    assertThrows(IllegalArgumentException.class,
-        () -> component.evaluateSpecimen(specimen, objectFilter));
+    var result = component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(matchingCollection, failingCollection)));
+
+    // Then
+    assertThat(result).containsExactly(matchingCollection.virtualCollection());
+    then(cache).should().quarantineVirtualCollection(eq(failingCollection), anyString());
   }
 
+  @Test
+  void testFindMatchingVirtualCollectionsMissingPath() throws JsonProcessingException {
+    // Given
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var equalsCollection = givenOtherVirtualCollection(OdsPredicateType.EQUALS,
+        "$['ods:unknownField']", "Zoology");
+    var notCollection = givenOtherVirtualCollection(OdsPredicateType.NOT,
+        "$['ods:unknownField']", "Zoology");
+
+    // When
+    var equalsResult = component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(equalsCollection)));
+    var notResult = component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(notCollection)));
+
+    // Then
+    assertThat(equalsResult).isEmpty();
+    assertThat(notResult).containsExactly(notCollection.virtualCollection());
+    then(cache).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void testFindMatchingVirtualCollectionsQuarantinesSlowFilter() throws JsonProcessingException {
+    // Given
+    var properties = new QuarantineProperties();
+    properties.setEvaluationBudget(Duration.ZERO);
+    properties.setBudgetViolations(2);
+    properties.setBudgetSampleInterval(1);
+    component = new SpecimenEvaluationComponent(MAPPER, cache, properties, meterRegistry);
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var virtualCollection = givenCompiledVirtualCollection();
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+
+    // When
+    component.findMatchingVirtualCollections(document, index);
+    component.findMatchingVirtualCollections(document, index);
+    component.findMatchingVirtualCollections(document, index);
+
+    // Then
+    then(cache).should(times(1)).quarantineVirtualCollection(eq(virtualCollection), anyString());
+  }
+
+  @Test
+  void testFindMatchingVirtualCollectionsNewVersionResetsViolations()
+      throws JsonProcessingException {
+    // Given
+    var properties = new QuarantineProperties();
+    properties.setEvaluationBudget(Duration.ZERO);
+    properties.setBudgetViolations(2);
+    properties.setBudgetSampleInterval(1);
+    component = new SpecimenEvaluationComponent(MAPPER, cache, properties, meterRegistry);
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var previousVersion = givenCompiledVirtualCollection();
+    var newVersion = givenCompiledVirtualCollection();
+
+    // When
+    component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(previousVersion)));
+    component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(newVersion)));
+    then(cache).should(never()).quarantineVirtualCollection(any(), anyString());
+    component.findMatchingVirtualCollections(document,
+        VirtualCollectionIndex.of(List.of(newVersion)));
+
+    // Then
+    then(cache).should().quarantineVirtualCollection(same(newVersion), anyString());
+  }
+
+  @Test
+  void testFindMatchingVirtualCollectionsBudgetCheckDisabled() throws JsonProcessingException {
+    // Given
+    var properties = new QuarantineProperties();
+    properties.setEvaluationBudget(Duration.ZERO);
+    properties.setBudgetViolations(1);
+    properties.setBudgetSampleInterval(0);
+    component = new SpecimenEvaluationComponent(MAPPER, cache, properties, meterRegistry);
+    var document = component.parseSpecimen(givenDigitalSpecimen());
+    var index = VirtualCollectionIndex.of(List.of(givenCompiledVirtualCollection()));
+
+    // When
+    var result = component.findMatchingVirtualCollections(document, index);
+
+    // Then
+    assertThat(result).hasSize(1);
+    then(cache).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void testFindMatchingVirtualCollectionsInBudgetResetsViolations() {
+    // Given
+    var properties = new QuarantineProperties();
+    properties.setEvaluationBudget(Duration.ofMillis(100));
+    properties.setBudgetViolations(2);
+    properties.setBudgetSampleInterval(1);
+    component = new SpecimenEvaluationComponent(MAPPER, cache, properties, meterRegistry);
+    var slow = new AtomicBoolean();
+    given(document.read(any(JsonPath.class))).willAnswer(invocation -> {
+      if (slow.get()) {
+        Thread.sleep(150);
+      }
+      return "Botany";
+    });
+    var virtualCollection = givenOtherVirtualCollection(OdsPredicateType.NOT,
+        "$['ods:topicDiscipline']", "Zoology");
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+
+    // When
+    slow.set(true);
+    component.findMatchingVirtualCollections(document, index);
+    slow.set(false);
+    component.findMatchingVirtualCollections(document, index);
+    slow.set(true);
+    component.findMatchingVirtualCollections(document, index);
+    then(cache).should(never()).quarantineVirtualCollection(any(), anyString());
+    component.findMatchingVirtualCollections(document, index);
+
+    // Then
+    then(cache).should(times(1)).quarantineVirtualCollection(eq(virtualCollection), anyString());
+  }
 
 }
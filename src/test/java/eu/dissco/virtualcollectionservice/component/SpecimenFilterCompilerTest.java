@@ -0,0 +1,87 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenAndFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenEqualsListFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenInFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenNotFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenOrFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenTargetDigitalObjectFilter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.AndFilter;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.EqualsPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.InPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.NotPredicate;
+import eu.dissco.virtualcollectionservice.domain.CompiledFilter.OrFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class SpecimenFilterCompilerTest {
+
+  static Stream<Arguments> compileFilterProvider() {
+    return Stream.of(
+        Arguments.of(givenTargetDigitalObjectFilter(), EqualsPredicate.class),
+        Arguments.of(givenNotFilter(), NotPredicate.class),
+        Arguments.of(givenInFilter(), InPredicate.class),
+        Arguments.of(givenEqualsListFilter(), InPredicate.class),
+        Arguments.of(givenAndFilter(), AndFilter.class),
+        Arguments.of(givenOrFilter(), OrFilter.class));
+  }
+
+  @ParameterizedTest
+  @MethodSource("compileFilterProvider")
+  void testCompileFilter(TargetDigitalObjectFilter filter,
+      Class<? extends CompiledFilter> expected) {
+    // Given
+
+    // When
+    var result = SpecimenFilterCompiler.compileFilter(filter);
+
+    // Then
+    assertThat(result).isInstanceOf(expected);
+  }
+
+  @Test
+  void testCompileInFilterValues() {
+    // Given
+    var filter = givenInFilter();
+
+    // When
+    var result = (InPredicate) SpecimenFilterCompiler.compileFilter(filter);
+
+    // Then
+    assertThat(result.key()).isEqualTo("$['ods:topicDiscipline']");
+    assertThat(result.values()).isEqualTo(Set.of("Botany", "Zoology"));
+  }
+
+  @Test
+  void testCompileInvalidPath() {
+    // Given
+    var filter = new TargetDigitalObjectFilter()
+        .withOdsPredicateType(OdsPredicateType.EQUALS)
+        .withOdsPredicateKey("$['ods:topicDiscipline'")
+        .withOdsPredicateValue("Botany");
+
+    // When / Then
+    assertThrows(IllegalArgumentException.class,
+        () -> SpecimenFilterCompiler.compileFilter(filter));
+  }
+
+  @ParameterizedTest
+  @MethodSource("eu.dissco.virtualcollectionservice.utils.TestUtils#illegalFilters")
+  void testInvalidCompileFilter(TargetDigitalObjectFilter objectFilter) {
+    // Given
+
+    // When / Then
+    assertThrows(IllegalArgumentException.class,
+        () -> SpecimenFilterCompiler.compileFilter(objectFilter));
+  }
+}
@@ -1,9 +1,29 @@
 package eu.dissco.virtualcollectionservice.component;
 
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.QuarantinedVirtualCollection;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionChange;
+import eu.dissco.virtualcollectionservice.property.CacheProperties;
 import eu.dissco.virtualcollectionservice.repository.VirtualCollectionRepository;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,14 +33,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 class VirtualCollectionCacheComponentTest {
 
+  private static final Duration OVERLAP = new CacheProperties().getDeltaRefreshOverlap();
+
   @Mock
   private VirtualCollectionRepository repository;
 
   private VirtualCollectionCacheComponent cache;
+  private SimpleMeterRegistry meterRegistry;
 
   @BeforeEach
   void setUp() {
-    cache = new VirtualCollectionCacheComponent(repository);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new VirtualCollectionCacheComponent(repository, new CacheProperties(), meterRegistry);
   }
 
   @Test
@@ -32,6 +56,9 @@ class VirtualCollectionCacheComponentTest {
 
     // Then
     then(repository).should().getAllVirtualCollections();
+    assertThat(meterRegistry.get("virtual.collection.cache.refresh").tag("type", "full").timer()
+        .count()).isEqualTo(1);
+    assertThat(meterRegistry.get("virtual.collection.cache.size").gauge().value()).isZero();
   }
 
   @Test
@@ -46,4 +73,257 @@ class VirtualCollectionCacheComponentTest {
     then(repository).should(times(2)).getAllVirtualCollections();
   }
 
+  @Test
+  void testFillCacheSkipsInvalidFilter() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    var invalidVirtualCollection = givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY",
+        "Invalid collection")
+        .withOdsHasTargetDigitalObjectFilter(new TargetDigitalObjectFilter()
+            .withOdsPredicateType(OdsPredicateType.IN)
+            .withOdsPredicateKey("$['ods:topicDiscipline']")
+            .withOdsPredicateValues(List.of("botany")));
+    given(repository.getAllVirtualCollections()).willReturn(
+        new HashSet<>(List.of(virtualCollection, invalidVirtualCollection)));
+
+    // When
+    cache.fillCache();
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections())
+        .map(CompiledVirtualCollection::virtualCollection)
+        .containsExactly(virtualCollection);
+    assertThat(cache.getQuarantine()).map(QuarantinedVirtualCollection::virtualCollection)
+        .containsExactly(invalidVirtualCollection);
+    assertThat(meterRegistry.get("virtual.collection.quarantine.size").gauge().value())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void testQuarantineVirtualCollection() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+
+    // When
+    cache.quarantineVirtualCollection(getCompiledVirtualCollection(), "Evaluation failed");
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections()).isEmpty();
+    assertThat(cache.getQuarantine()).map(QuarantinedVirtualCollection::reason)
+        .containsExactly("Evaluation failed");
+  }
+
+  @Test
+  void testQuarantineVirtualCollectionReplacedVersion() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+    var previousVersion = getCompiledVirtualCollection();
+    cache.addVirtualCollection(givenVirtualCollection());
+
+    // When
+    cache.quarantineVirtualCollection(previousVersion, "Evaluation failed");
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections()).singleElement()
+        .isNotSameAs(previousVersion);
+    assertThat(cache.getQuarantine()).isEmpty();
+  }
+
+  @Test
+  void testQuarantineVirtualCollectionDuringRefresh() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+    var compiledVirtualCollection = getCompiledVirtualCollection();
+    given(repository.getVirtualCollectionsChangedSince(any())).willAnswer(invocation -> {
+      CompletableFuture.runAsync(
+              () -> cache.quarantineVirtualCollection(compiledVirtualCollection, "Evaluation failed"))
+          .get(1, TimeUnit.SECONDS);
+      return List.of();
+    }).willReturn(List.of());
+
+    // When
+    cache.refreshCacheDelta();
+    var snapshot = cache.getIndex();
+    cache.refreshCacheDelta();
+
+    // Then
+    assertThat(snapshot.getVirtualCollections()).containsExactly(compiledVirtualCollection);
+    assertThat(cache.getIndex().getVirtualCollections()).isEmpty();
+    assertThat(cache.getQuarantine()).map(QuarantinedVirtualCollection::reason)
+        .containsExactly("Evaluation failed");
+  }
+
+  @Test
+  void testFillCacheKeepsQuarantine() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+    cache.quarantineVirtualCollection(getCompiledVirtualCollection(), "Evaluation failed");
+
+    // When
+    cache.refreshCache();
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections()).isEmpty();
+    assertThat(cache.getQuarantine()).hasSize(1);
+  }
+
+  @Test
+  void testReleaseVirtualCollection() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+    cache.quarantineVirtualCollection(getCompiledVirtualCollection(), "Evaluation failed");
+
+    // When
+    var result = cache.releaseVirtualCollection(virtualCollection.getId());
+
+    // Then
+    assertThat(result).isTrue();
+    assertThat(cache.getIndex().getVirtualCollections())
+        .map(CompiledVirtualCollection::virtualCollection)
+        .containsExactly(virtualCollection);
+    assertThat(cache.getQuarantine()).isEmpty();
+  }
+
+  @Test
+  void testReleaseVirtualCollectionNotQuarantined() {
+    // When
+    var result = cache.releaseVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY");
+
+    // Then
+    assertThat(result).isFalse();
+  }
+
+  @Test
+  void testRefreshCacheDelta() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    var newVirtualCollection = givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY",
+        "New collection");
+    var latestChange = Instant.parse("2025-09-23T12:05:24.000Z");
+    var newChange = latestChange.plusSeconds(5);
+    given(repository.getLatestChange()).willReturn(Optional.of(latestChange));
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    given(repository.getVirtualCollectionsChangedSince(latestChange.minus(OVERLAP)))
+        .willReturn(List.of(
+            new VirtualCollectionChange(virtualCollection, true, newChange),
+            new VirtualCollectionChange(newVirtualCollection, false, newChange)));
+    cache.fillCache();
+
+    // When
+    cache.refreshCacheDelta();
+    cache.refreshCacheDelta();
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections())
+        .map(CompiledVirtualCollection::virtualCollection)
+        .containsExactly(newVirtualCollection);
+    then(repository).should().getVirtualCollectionsChangedSince(newChange.minus(OVERLAP));
+  }
+
+  @Test
+  void testRefreshCacheDeltaOverlap() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    var lateVirtualCollection = givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY",
+        "Late collection");
+    var latestChange = Instant.parse("2025-09-23T12:05:24.000Z");
+    given(repository.getLatestChange()).willReturn(Optional.of(latestChange));
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    given(repository.getVirtualCollectionsChangedSince(latestChange.minus(OVERLAP)))
+        .willReturn(List.of(
+            new VirtualCollectionChange(virtualCollection, false, latestChange),
+            new VirtualCollectionChange(lateVirtualCollection, false, latestChange)));
+    cache.fillCache();
+    var snapshot = cache.getIndex();
+
+    // When
+    cache.refreshCacheDelta();
+    var lateSnapshot = cache.getIndex();
+    cache.refreshCacheDelta();
+
+    // Then
+    assertThat(lateSnapshot).isNotSameAs(snapshot);
+    assertThat(cache.getIndex()).isSameAs(lateSnapshot);
+    assertThat(cache.getIndex().getVirtualCollections())
+        .map(CompiledVirtualCollection::virtualCollection)
+        .containsExactlyInAnyOrder(virtualCollection, lateVirtualCollection);
+  }
+
+  @Test
+  void testRefreshCacheDeltaKeepsQuarantine() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    var latestChange = Instant.parse("2025-09-23T12:05:24.000Z");
+    given(repository.getLatestChange()).willReturn(Optional.of(latestChange));
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    given(repository.getVirtualCollectionsChangedSince(latestChange.minus(OVERLAP)))
+        .willReturn(List.of(new VirtualCollectionChange(virtualCollection, false, latestChange)));
+    cache.fillCache();
+    cache.quarantineVirtualCollection(getCompiledVirtualCollection(), "Evaluation failed");
+
+    // When
+    cache.refreshCacheDelta();
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections()).isEmpty();
+    assertThat(cache.getQuarantine()).hasSize(1);
+  }
+
+  @Test
+  void testRefreshCacheDeltaDisabled() {
+    // Given
+    var properties = new CacheProperties();
+    properties.setDeltaRefreshEnabled(false);
+    cache = new VirtualCollectionCacheComponent(repository, properties, meterRegistry);
+
+    // When
+    cache.refreshCacheDelta();
+
+    // Then
+    then(repository).should(never()).getVirtualCollectionsChangedSince(any());
+  }
+
+  @Test
+  void testAddVirtualCollection() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+
+    // When
+    cache.addVirtualCollection(virtualCollection);
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections())
+        .map(CompiledVirtualCollection::virtualCollection)
+        .containsExactly(virtualCollection);
+    assertThat(cache.getIndex().size()).isEqualTo(1);
+  }
+
+  @Test
+  void testRemoveVirtualCollection() {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    given(repository.getAllVirtualCollections()).willReturn(Set.of(virtualCollection));
+    cache.fillCache();
+
+    // When
+    cache.removeVirtualCollection(virtualCollection.getId());
+
+    // Then
+    assertThat(cache.getIndex().getVirtualCollections()).isEmpty();
+  }
+
+  private CompiledVirtualCollection getCompiledVirtualCollection() {
+    return cache.getIndex().getVirtualCollections().iterator().next();
+  }
+
 }
@@ -0,0 +1,67 @@
+package eu.dissco.virtualcollectionservice.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ZstdCompressionCodecTest {
+
+  private static final byte[] MESSAGE = """
+      {"ods:type": "ods:DigitalSpecimen", "ods:specimenName": "Biota"}"""
+      .getBytes(StandardCharsets.UTF_8);
+
+  private final ZstdCompressionCodec codec = new ZstdCompressionCodec();
+
+  /**
+   * Single segment frame with a 4 byte content size and one raw block holding the message.
+   */
+  private static byte[] givenFrame(int contentSize, byte[] message) {
+    var frame = new byte[4 + 1 + 4 + 3 + message.length];
+    var header = new byte[]{
+        (byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd, (byte) 0xa0,
+        (byte) contentSize, (byte) (contentSize >> 8), (byte) (contentSize >> 16),
+        (byte) (contentSize >> 24)};
+    System.arraycopy(header, 0, frame, 0, header.length);
+    var blockHeader = message.length << 3 | 1;
+    frame[9] = (byte) blockHeader;
+    frame[10] = (byte) (blockHeader >> 8);
+    frame[11] = (byte) (blockHeader >> 16);
+    System.arraycopy(message, 0, frame, 12, message.length);
+    return frame;
+  }
+
+  @Test
+  void testDecompressFrame() throws IOException {
+    // When
+    var result = codec.decompress(givenFrame(MESSAGE.length, MESSAGE));
+
+    // Then
+    assertThat(result).isEqualTo(MESSAGE);
+  }
+
+  @Test
+  void testDecompressForgedContentSize() {
+    // Given
+    var frame = givenFrame(Integer.MAX_VALUE - 16, MESSAGE);
+
+    // When / Then
+    assertThrows(IOException.class, () -> codec.decompress(frame));
+  }
+
+  @Test
+  void testDecompressHighlyCompressible() throws IOException {
+    // Given
+    var message = new byte[4 * 1024 * 1024];
+    var compressed = codec.compress(message);
+
+    // When
+    var result = codec.decompress(compressed);
+
+    // Then
+    assertThat(compressed.length * 1032L).isLessThan(message.length);
+    assertThat(result).isEqualTo(message);
+  }
+}
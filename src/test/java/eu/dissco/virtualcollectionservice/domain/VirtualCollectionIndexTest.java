@@ -0,0 +1,93 @@
+package eu.dissco.virtualcollectionservice.domain;
+
+import static eu.dissco.virtualcollectionservice.component.SpecimenFilterCompiler.compileFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenAndFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenInFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenNotFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenOrFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenSpecimenNode;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenTargetDigitalObjectFilter;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter;
+import eu.dissco.virtualcollectionservice.schema.TargetDigitalObjectFilter.OdsPredicateType;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VirtualCollectionIndexTest {
+
+  private DocumentContext document;
+
+  private static CompiledVirtualCollection givenCompiledCollection(String suffix,
+      TargetDigitalObjectFilter filter) {
+    return new CompiledVirtualCollection(
+        givenVirtualCollection("https://hdl.handle.net/TEST/" + suffix, suffix)
+            .withOdsHasTargetDigitalObjectFilter(filter), compileFilter(filter));
+  }
+
+  @BeforeEach
+  void setUp() throws JsonProcessingException {
+    document = JsonPath.parse(MAPPER.writeValueAsString(givenSpecimenNode()));
+  }
+
+  @Test
+  void testFindCandidates() {
+    // Given
+    var equalsCollection = givenCompiledCollection("AAA-AAA-AAA",
+        givenTargetDigitalObjectFilter());
+    var inCollection = givenCompiledCollection("BBB-BBB-BBB", givenInFilter());
+    var andCollection = givenCompiledCollection("CCC-CCC-CCC", givenAndFilter());
+    var orCollection = givenCompiledCollection("DDD-DDD-DDD", givenOrFilter());
+    var otherCollection = givenCompiledCollection("EEE-EEE-EEE", new TargetDigitalObjectFilter()
+        .withOdsPredicateType(OdsPredicateType.EQUALS)
+        .withOdsPredicateKey("$['ods:organisationID']")
+        .withOdsPredicateValue("https://ror.org/0443cwa12"));
+    var index = VirtualCollectionIndex.of(
+        List.of(equalsCollection, inCollection, andCollection, orCollection, otherCollection));
+
+    // When
+    var result = index.findCandidates(document);
+
+    // Then
+    assertThat(result).containsExactlyInAnyOrder(equalsCollection, inCollection, andCollection,
+        orCollection);
+  }
+
+  @Test
+  void testFindCandidatesResidual() {
+    // Given
+    var notCollection = givenCompiledCollection("AAA-AAA-AAA", givenNotFilter());
+    var index = VirtualCollectionIndex.of(List.of(notCollection));
+
+    // When
+    var result = index.findCandidates(document);
+
+    // Then
+    assertThat(result).containsExactly(notCollection);
+  }
+
+  @Test
+  void testFindCandidatesMissingKey() {
+    // Given
+    var missingKeyCollection = givenCompiledCollection("AAA-AAA-AAA",
+        new TargetDigitalObjectFilter()
+            .withOdsPredicateType(OdsPredicateType.EQUALS)
+            .withOdsPredicateKey("$['dwc:unknownTerm']")
+            .withOdsPredicateValue("value"));
+    var index = VirtualCollectionIndex.of(List.of(missingKeyCollection));
+
+    // When
+    var result = index.findCandidates(document);
+
+    // Then
+    assertThat(result).isEmpty();
+    assertThat(index.getVirtualCollections()).containsExactly(missingKeyCollection);
+  }
+
+}
@@ -0,0 +1,118 @@
+package eu.dissco.virtualcollectionservice.repository;
+
+import static eu.dissco.virtualcollectionservice.database.jooq.Tables.BACKFILL_JOB;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testcontainers.containers.PostgreSQLContainer.IMAGE;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.zaxxer.hikari.HikariDataSource;
+import eu.dissco.virtualcollectionservice.domain.BackfillJob;
+import eu.dissco.virtualcollectionservice.domain.BackfillStatus;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DefaultDSLContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@Testcontainers
+class BackfillJobRepositoryIT {
+
+  private static final DockerImageName POSTGIS =
+      DockerImageName.parse("postgres:17.5").asCompatibleSubstituteFor(IMAGE);
+  private static final String POINT_IN_TIME_ID = "pit-id";
+  private static final String VIRTUAL_COLLECTION_ID = givenVirtualCollection().getId();
+
+  @Container
+  private static final PostgreSQLContainer<?> CONTAINER = new PostgreSQLContainer<>(POSTGIS);
+  protected DSLContext context;
+  private HikariDataSource dataSource;
+  private BackfillJobRepository repository;
+
+  private static BackfillJob givenBackfillJob(int slice) {
+    return new BackfillJob(VIRTUAL_COLLECTION_ID, VirtualCollectionAction.CREATE, slice,
+        POINT_IN_TIME_ID, null, 0, BackfillStatus.RUNNING);
+  }
+
+  @BeforeEach
+  void prepareDatabase() {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(CONTAINER.getJdbcUrl());
+    dataSource.setUsername(CONTAINER.getUsername());
+    dataSource.setPassword(CONTAINER.getPassword());
+    dataSource.setMaximumPoolSize(2);
+    dataSource.setConnectionInitSql(CONTAINER.getTestQueryString());
+    Flyway.configure().mixed(true).dataSource(dataSource).load().migrate();
+    context = new DefaultDSLContext(dataSource, SQLDialect.POSTGRES);
+    repository = new BackfillJobRepository(context, MAPPER);
+  }
+
+  @AfterEach
+  void disposeDataSource() {
+    context.delete(BACKFILL_JOB).execute();
+    dataSource.close();
+  }
+
+  @Test
+  void testCreateBackfillJobs() {
+    // Given
+    var backfillJobs = List.of(givenBackfillJob(0), givenBackfillJob(1));
+
+    // When
+    repository.createBackfillJobs(backfillJobs);
+    var result = repository.getBackfillJobs(VIRTUAL_COLLECTION_ID, VirtualCollectionAction.CREATE);
+
+    // Then
+    assertThat(result).isEqualTo(backfillJobs);
+  }
+
+  @Test
+  void testCreateBackfillJobsReplacesPrevious() {
+    // Given
+    repository.createBackfillJobs(List.of(givenBackfillJob(0), givenBackfillJob(1)));
+
+    // When
+    repository.createBackfillJobs(List.of(givenBackfillJob(0)));
+    var result = repository.getBackfillJobs(VIRTUAL_COLLECTION_ID, VirtualCollectionAction.CREATE);
+
+    // Then
+    assertThat(result).containsExactly(givenBackfillJob(0));
+  }
+
+  @Test
+  void testUpdateBackfillJob() {
+    // Given
+    repository.createBackfillJobs(List.of(givenBackfillJob(0)));
+    var expected = givenBackfillJob(0).withCheckpoint("new-pit-id",
+            List.of(FieldValue.of("https://doi.org/TEST/XXX-XXX-XXX"), FieldValue.of(42L)), 1000)
+        .withStatus(BackfillStatus.COMPLETED);
+
+    // When
+    repository.updateBackfillJob(expected);
+    var result = repository.getBackfillJobs(VIRTUAL_COLLECTION_ID, VirtualCollectionAction.CREATE);
+
+    // Then
+    assertThat(result).singleElement().usingRecursiveComparison().isEqualTo(expected);
+  }
+
+  @Test
+  void testGetBackfillJobsOtherAction() {
+    // Given
+    repository.createBackfillJobs(List.of(givenBackfillJob(0)));
+
+    // When
+    var result = repository.getBackfillJobs(VIRTUAL_COLLECTION_ID, VirtualCollectionAction.DELETE);
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+}
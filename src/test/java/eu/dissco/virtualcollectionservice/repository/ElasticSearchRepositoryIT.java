@@ -1,6 +1,7 @@
 package eu.dissco.virtualcollectionservice.repository;
 
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimen;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenElasticQuery;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenSpecimenNode;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -12,6 +13,8 @@ import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.fasterxml.jackson.databind.JsonNode;
 import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties;
+import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties.SourceFilterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.util.List;
 import org.apache.http.HttpHost;
@@ -78,7 +81,8 @@ class ElasticSearchRepositoryIT {
 
   @BeforeEach
   void initRepository() {
-    elasticRepository = new ElasticSearchRepository(client, properties);
+    elasticRepository = new ElasticSearchRepository(client, properties,
+        new SimpleMeterRegistry());
   }
 
   @AfterEach
@@ -93,12 +97,67 @@ class ElasticSearchRepositoryIT {
     // Given
     postDigitalSpecimens(List.of(givenSpecimenNode()));
 
+    var pointInTimeId = elasticRepository.openPointInTime(DIGITAL_SPECIMEN_INDEX);
+
+    // When
+    var searchPage = elasticRepository.retrieveObjects(givenElasticQuery(), pointInTimeId, null,
+        null, null);
+    var nextPage = elasticRepository.retrieveObjects(givenElasticQuery(),
+        searchPage.pointInTimeId(), null, searchPage.searchAfter(), null);
+    elasticRepository.closePointInTime(nextPage.pointInTimeId());
+
+    // Then
+    assertThat(searchPage.results().getFirst()).isEqualTo(givenDigitalSpecimen());
+    assertThat(searchPage.searchAfter()).hasSize(2);
+    assertThat(nextPage.results()).isEmpty();
+  }
+
+  @Test
+  void testCountObjects() throws IOException {
+    // Given
+    postDigitalSpecimens(List.of(givenSpecimenNode()));
+
+    // When
+    var result = elasticRepository.countObjects(DIGITAL_SPECIMEN_INDEX, givenElasticQuery());
+
+    // Then
+    assertThat(result).isEqualTo(1L);
+  }
+
+  @Test
+  void testRetrieveObjectsSliced() throws IOException {
+    // Given
+    properties.setSlices(2);
+    postDigitalSpecimens(List.of(givenSpecimenNode()));
+    var pointInTimeId = elasticRepository.openPointInTime(DIGITAL_SPECIMEN_INDEX);
+
+    // When
+    var firstSlice = elasticRepository.retrieveObjects(givenElasticQuery(), pointInTimeId, 0,
+        null, null);
+    var secondSlice = elasticRepository.retrieveObjects(givenElasticQuery(), pointInTimeId, 1,
+        null, null);
+    elasticRepository.closePointInTime(pointInTimeId);
+
+    // Then
+    assertThat(firstSlice.results().size() + secondSlice.results().size()).isEqualTo(1);
+  }
+
+  @Test
+  void testRetrieveObjectsSourceFilter() throws IOException {
+    // Given
+    postDigitalSpecimens(List.of(givenSpecimenNode()));
+    var pointInTimeId = elasticRepository.openPointInTime(DIGITAL_SPECIMEN_INDEX);
+    var sourceFilter = new SourceFilterProperties();
+    sourceFilter.setExcludes(List.of("ods:hasEvents"));
+
     // When
-    var specimen = elasticRepository.retrieveObjects(null, DIGITAL_SPECIMEN_INDEX,
-        givenElasticQuery());
+    var searchPage = elasticRepository.retrieveObjects(givenElasticQuery(), pointInTimeId, null,
+        null, sourceFilter);
+    elasticRepository.closePointInTime(pointInTimeId);
 
     // Then
-    assertThat(specimen.getFirst()).isEqualTo(givenSpecimenNode());
+    assertThat(searchPage.results().getFirst().getId()).isEqualTo(givenDigitalSpecimen().getId());
+    assertThat(searchPage.results().getFirst().getOdsHasEvents()).isEmpty();
   }
 
   private void postDigitalSpecimens(List<JsonNode> jsonObjects)
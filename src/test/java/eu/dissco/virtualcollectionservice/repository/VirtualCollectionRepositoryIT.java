@@ -9,6 +9,7 @@ import static org.testcontainers.containers.PostgreSQLContainer.IMAGE;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.zaxxer.hikari.HikariDataSource;
 import eu.dissco.virtualcollectionservice.database.jooq.enums.CollectionType;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionChange;
 import eu.dissco.virtualcollectionservice.schema.VirtualCollection;
 import eu.dissco.virtualcollectionservice.schema.VirtualCollection.LtcBasisOfScheme;
 import java.util.List;
@@ -59,6 +60,7 @@ class VirtualCollectionRepositoryIT {
 
   @AfterEach
   void disposeDataSource() {
+    context.delete(VIRTUAL_COLLECTION).execute();
     dataSource.close();
   }
 
@@ -76,6 +78,40 @@ class VirtualCollectionRepositoryIT {
     assertThat(result).hasSameElementsAs(virtualCollections);
   }
 
+  @Test
+  void testGetVirtualCollectionsChangedSince() throws JsonProcessingException {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    insertVirtualCollection(List.of(virtualCollection));
+    var since = virtualCollection.getSchemaDateModified().toInstant();
+    var tombstoned = since.plusSeconds(10);
+    context.update(VIRTUAL_COLLECTION)
+        .set(VIRTUAL_COLLECTION.TOMBSTONED, tombstoned)
+        .execute();
+
+    // When
+    var result = repository.getVirtualCollectionsChangedSince(since);
+
+    // Then
+    assertThat(result).containsExactly(
+        new VirtualCollectionChange(virtualCollection, true, tombstoned));
+    assertThat(repository.getLatestChange()).contains(tombstoned);
+  }
+
+  @Test
+  void testGetVirtualCollectionsChangedSinceNoChanges() throws JsonProcessingException {
+    // Given
+    var virtualCollection = givenVirtualCollection();
+    insertVirtualCollection(List.of(virtualCollection));
+
+    // When
+    var result = repository.getVirtualCollectionsChangedSince(
+        virtualCollection.getSchemaDateModified().toInstant());
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+
   private void insertVirtualCollection(List<VirtualCollection> virtualCollections) throws JsonProcessingException {
     for (var virtualCollection : virtualCollections) {
       context.insertInto(VIRTUAL_COLLECTION)
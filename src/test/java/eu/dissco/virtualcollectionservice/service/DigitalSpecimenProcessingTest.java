@@ -1,19 +1,25 @@
 package eu.dissco.virtualcollectionservice.service;
 
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenCompiledVirtualCollection;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEvent;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEventWithVC;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
-import static org.junit.Assert.assertThrows;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.jayway.jsonpath.DocumentContext;
 import eu.dissco.virtualcollectionservice.component.SpecimenEvaluationComponent;
 import eu.dissco.virtualcollectionservice.component.VirtualCollectionCacheComponent;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionIndex;
 import eu.dissco.virtualcollectionservice.property.ApplicationProperties;
+import eu.dissco.virtualcollectionservice.property.IngestionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
-import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,41 +35,89 @@ class DigitalSpecimenProcessingTest {
   private RabbitMqPublisherService publisherService;
   @Mock
   private SpecimenEvaluationComponent evaluationComponent;
+  @Mock
+  private DocumentContext document;
+  @Mock
+  private DocumentContext otherDocument;
 
   private DigitalSpecimenProcessingService processingService;
 
   @BeforeEach
   void setUp() {
     processingService = new DigitalSpecimenProcessingService(MAPPER, new ApplicationProperties(),
-        cache, publisherService, evaluationComponent);
+        cache, publisherService, evaluationComponent, new IngestionProperties(),
+        new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  void tearDown() {
+    processingService.shutdown();
+  }
+
+  private void givenParallelProcessingService() {
+    var ingestionProperties = new IngestionProperties();
+    ingestionProperties.setParallelEvaluationEnabled(true);
+    ingestionProperties.setParallelism(2);
+    processingService = new DigitalSpecimenProcessingService(MAPPER, new ApplicationProperties(),
+        cache, publisherService, evaluationComponent, ingestionProperties,
+        new SimpleMeterRegistry());
   }
 
   @Test
   void handleIngestionEvents() throws JsonProcessingException {
     // Given
-    var virtualCollection = givenVirtualCollection();
+    var virtualCollection = givenCompiledVirtualCollection();
+    var digitalSpecimen = givenDigitalSpecimenEvent();
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of(virtualCollection.virtualCollection()));
+
+    // When
+    processingService.handleIngestionEvents(List.of(digitalSpecimen));
+
+    // Then
+    then(publisherService).should().publishDigitalSpecimens(any());
+  }
+
+  @Test
+  void handleIngestionEventsMultipleMatches() throws JsonProcessingException {
+    // Given
+    var virtualCollection = givenCompiledVirtualCollection();
+    var secondVirtualCollection = givenVirtualCollection("https://hdl.handle.net/TEST/YYY-YYY-YYY",
+        "Second collection");
     var digitalSpecimen = givenDigitalSpecimenEvent();
-    given(cache.getCache()).willReturn(Set.of(virtualCollection));
-    given(
-        evaluationComponent.evaluateSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes(),
-            virtualCollection.getOdsHasTargetDigitalObjectFilter())).willReturn(true);
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of(virtualCollection.virtualCollection(), secondVirtualCollection));
 
     // When
     processingService.handleIngestionEvents(List.of(digitalSpecimen));
 
     // Then
-    then(publisherService).should().publishDigitalSpecimen(any());
+    then(publisherService).should().publishDigitalSpecimens(List.of(digitalSpecimen));
+    assertThat(digitalSpecimen.digitalSpecimenWrapper().attributes().getOdsHasEntityRelationships())
+        .filteredOn(relationship -> relationship.getDwcRelationshipOfResource()
+            .equals("hasVirtualCollection"))
+        .hasSize(2);
   }
 
   @Test
   void handleIngestionEventsNoMatch() throws JsonProcessingException {
     // Given
-    var virtualCollection = givenVirtualCollection();
+    var virtualCollection = givenCompiledVirtualCollection();
     var digitalSpecimen = givenDigitalSpecimenEvent();
-    given(cache.getCache()).willReturn(Set.of(virtualCollection));
-    given(
-        evaluationComponent.evaluateSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes(),
-            virtualCollection.getOdsHasTargetDigitalObjectFilter())).willReturn(false);
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of());
 
     // When
     processingService.handleIngestionEvents(List.of(digitalSpecimen));
@@ -73,23 +127,98 @@ class DigitalSpecimenProcessingTest {
   }
 
   @Test
-  void handleIngestionEventsInvalidVC() throws JsonProcessingException {
+  void handleIngestionEventsInvalidSpecimen() throws JsonProcessingException {
     // Given
-    var virtualCollection = givenVirtualCollection();
     var digitalSpecimen = givenDigitalSpecimenEvent();
-    given(cache.getCache()).willReturn(Set.of(virtualCollection));
-    given(
-        evaluationComponent.evaluateSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes(),
-            virtualCollection.getOdsHasTargetDigitalObjectFilter())).willThrow(
-        new JsonProcessingException("Invalid Json") {
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willThrow(new JsonProcessingException("Invalid Json") {
         });
 
     // When
-    assertThrows(JsonProcessingException.class,
-        () -> processingService.handleIngestionEvents(List.of(digitalSpecimen)));
+    processingService.handleIngestionEvents(List.of(digitalSpecimen));
 
     // Then
-    then(publisherService).shouldHaveNoInteractions();
+    then(publisherService).should().sendMessageDLQ(any(byte[].class),
+        any(JsonProcessingException.class));
+    then(publisherService).shouldHaveNoMoreInteractions();
+  }
+
+  @Test
+  void handleIngestionEventsFailingEventIsolated() throws JsonProcessingException {
+    // Given
+    var virtualCollection = givenCompiledVirtualCollection();
+    var invalidSpecimen = givenDigitalSpecimenEventWithVC();
+    var digitalSpecimen = givenDigitalSpecimenEvent();
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    var exception = new IllegalArgumentException("Malformed filter");
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(invalidSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(otherDocument);
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(otherDocument, index))
+        .willThrow(exception);
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of(virtualCollection.virtualCollection()));
+
+    // When
+    processingService.handleIngestionEvents(List.of(invalidSpecimen, digitalSpecimen));
+
+    // Then
+    then(publisherService).should()
+        .sendMessageDLQ(MAPPER.writeValueAsBytes(invalidSpecimen), exception);
+    then(publisherService).should().publishDigitalSpecimens(List.of(digitalSpecimen));
+  }
+
+  @Test
+  void handleIngestionEventsParallel() throws JsonProcessingException {
+    // Given
+    givenParallelProcessingService();
+    var virtualCollection = givenCompiledVirtualCollection();
+    var otherSpecimen = givenDigitalSpecimenEventWithVC();
+    var digitalSpecimen = givenDigitalSpecimenEvent();
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(otherSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(otherDocument);
+    given(evaluationComponent.parseSpecimen(digitalSpecimen.digitalSpecimenWrapper().attributes()))
+        .willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(otherDocument, index))
+        .willReturn(List.of());
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of(virtualCollection.virtualCollection()));
+
+    // When
+    processingService.handleIngestionEvents(List.of(otherSpecimen, digitalSpecimen));
+
+    // Then
+    then(publisherService).should().publishDigitalSpecimens(List.of(digitalSpecimen));
+  }
+
+  @Test
+  void handleIngestionEventsParallelInvalidSpecimen() throws JsonProcessingException {
+    // Given
+    givenParallelProcessingService();
+    var virtualCollection = givenCompiledVirtualCollection();
+    var invalidSpecimen = givenDigitalSpecimenEventWithVC();
+    var digitalSpecimen = givenDigitalSpecimenEvent();
+    var index = VirtualCollectionIndex.of(List.of(virtualCollection));
+    given(cache.getIndex()).willReturn(index);
+    given(evaluationComponent.parseSpecimen(invalidSpecimen.digitalSpecimenWrapper().attributes()))
+        .willThrow(new JsonProcessingException("Invalid Json") {
+        });
+    var specimen = digitalSpecimen.digitalSpecimenWrapper().attributes();
+    given(evaluationComponent.parseSpecimen(specimen)).willReturn(document);
+    given(evaluationComponent.findMatchingVirtualCollections(document, index))
+        .willReturn(List.of(virtualCollection.virtualCollection()));
+
+    // When
+    processingService.handleIngestionEvents(List.of(invalidSpecimen, digitalSpecimen));
+
+    // Then
+    then(publisherService).should().sendMessageDLQ(any(byte[].class),
+        any(JsonProcessingException.class));
+    then(publisherService).should().publishDigitalSpecimens(List.of(digitalSpecimen));
   }
 
 }
@@ -1,15 +1,25 @@
 package eu.dissco.virtualcollectionservice.service;
 
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEvent;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollectionEvent;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.then;
 
+import eu.dissco.virtualcollectionservice.component.GzipCompressionCodec;
+import eu.dissco.virtualcollectionservice.component.MessageCompressionComponent;
+import eu.dissco.virtualcollectionservice.property.CompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 
 @ExtendWith(MockitoExtension.class)
 class RabbitMqConsumerServiceTest {
@@ -20,12 +30,16 @@ class RabbitMqConsumerServiceTest {
   private DigitalSpecimenProcessingService digitalSpecimenProcessingService;
   @Mock
   private RabbitMqPublisherService publisherService;
+  private final MessageCompressionComponent messageCompressionComponent =
+      new MessageCompressionComponent(List.of(new GzipCompressionCodec()),
+          new CompressionProperties(), new SimpleMeterRegistry());
   private RabbitMqConsumerService consumerService;
 
   @BeforeEach
   void setup() {
     consumerService = new RabbitMqConsumerService(MAPPER, processingService,
-        digitalSpecimenProcessingService, publisherService);
+        digitalSpecimenProcessingService, publisherService, messageCompressionComponent,
+        new SimpleMeterRegistry());
   }
 
   @Test
@@ -40,4 +54,34 @@ class RabbitMqConsumerServiceTest {
     // Then
     then(processingService).should().handleMessage(event);
   }
+
+  @Test
+  void testGetBatchMessages() throws IOException {
+    // Given
+    var event = givenDigitalSpecimenEvent();
+    var compressedMessage = messageCompressionComponent.toMessage(MAPPER.writeValueAsString(event),
+        new MessageProperties());
+    var plainMessage = new Message(MAPPER.writeValueAsBytes(event), new MessageProperties());
+
+    // When
+    consumerService.getMessages(List.of(compressedMessage, plainMessage));
+
+    // Then
+    then(digitalSpecimenProcessingService).should().handleIngestionEvents(List.of(event, event));
+    then(publisherService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void testGetBatchMessagesInvalid() throws IOException {
+    // Given
+    var invalidMessage = messageCompressionComponent.toMessage("{\"invalid\": ",
+        new MessageProperties());
+
+    // When
+    consumerService.getMessages(List.of(invalidMessage));
+
+    // Then
+    then(publisherService).should().sendRawMessageDLQ(eq(invalidMessage), any(IOException.class));
+    then(digitalSpecimenProcessingService).should().handleIngestionEvents(List.of());
+  }
 }
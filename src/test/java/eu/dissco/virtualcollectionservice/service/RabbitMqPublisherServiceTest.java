@@ -5,12 +5,18 @@ import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpe
 import static org.assertj.core.api.Assertions.assertThat;
 
 import eu.dissco.virtualcollectionservice.property.RabbitMqProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory.ConfirmType;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.testcontainers.containers.RabbitMQContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -30,10 +36,14 @@ class RabbitMqPublisherServiceTest {
     // Declare digital specimen exchange, queue and binding
     declareRabbitResources("digital-specimen-exchange", "digital-specimen-queue",
         "digital-specimen");
+    // Declare ingestion DLQ exchange, queue and binding
+    declareRabbitResources("virtual-collection-ingestion-exchange-dlq",
+        "virtual-collection-ingestion-queue-dlq", "virtual-collection-ingestion-dlq");
     CachingConnectionFactory factory = new CachingConnectionFactory(container.getHost());
     factory.setPort(container.getAmqpPort());
     factory.setUsername(container.getAdminUsername());
     factory.setPassword(container.getAdminPassword());
+    factory.setPublisherConfirmType(ConfirmType.CORRELATED);
     rabbitTemplate = new RabbitTemplate(factory);
     rabbitTemplate.setReceiveTimeout(100L);
   }
@@ -57,19 +67,54 @@ class RabbitMqPublisherServiceTest {
   @BeforeEach
   void setup() {
     rabbitMqPublisherService = new RabbitMqPublisherService(rabbitTemplate,
-        new RabbitMqProperties(), MAPPER);
+        new RabbitMqProperties(), MAPPER, new SimpleMeterRegistry());
   }
 
   @Test
-  void testPublishDigitalSpecimen() throws IOException {
+  void testPublishDigitalSpecimens() throws IOException {
     // Given
-    var event = givenDigitalSpecimenEventWithVC();
+    var events = List.of(givenDigitalSpecimenEventWithVC(), givenDigitalSpecimenEventWithVC());
 
     // When
-    rabbitMqPublisherService.publishDigitalSpecimen(event);
+    rabbitMqPublisherService.publishDigitalSpecimens(events);
 
     // Then
-    var receivedMessage = rabbitTemplate.receive("digital-specimen-queue");
-    assertThat(new String(receivedMessage.getBody())).isNotNull();
+    assertThat(rabbitTemplate.receive("digital-specimen-queue")).isNotNull();
+    assertThat(rabbitTemplate.receive("digital-specimen-queue")).isNotNull();
+  }
+
+  @Test
+  void testSendMessageDLQWithException() {
+    // Given
+    var exception = new IllegalArgumentException("Malformed filter");
+
+    // When
+    rabbitMqPublisherService.sendMessageDLQ("{\"id\": \"failed\"}", exception);
+
+    // Then
+    var receivedMessage = rabbitTemplate.receive("virtual-collection-ingestion-queue-dlq");
+    assertThat(receivedMessage.getMessageProperties().<String>getHeader("x-exception-message"))
+        .isEqualTo("Malformed filter");
+    assertThat(receivedMessage.getMessageProperties().<String>getHeader("x-exception-type"))
+        .isEqualTo(IllegalArgumentException.class.getName());
+  }
+
+  @Test
+  void testSendRawMessageDLQWithException() {
+    // Given
+    var message = new Message("{\"invalid\": ".getBytes(StandardCharsets.UTF_8),
+        new MessageProperties());
+    var exception = new IOException("Unexpected end-of-input");
+
+    // When
+    rabbitMqPublisherService.sendRawMessageDLQ(message, exception);
+
+    // Then
+    var receivedMessage = rabbitTemplate.receive("virtual-collection-ingestion-queue-dlq");
+    assertThat(receivedMessage.getBody()).isEqualTo(message.getBody());
+    assertThat(receivedMessage.getMessageProperties().<String>getHeader("x-exception-message"))
+        .isEqualTo("Unexpected end-of-input");
+    assertThat(receivedMessage.getMessageProperties().<String>getHeader("x-exception-type"))
+        .isEqualTo(IOException.class.getName());
   }
 }
@@ -2,23 +2,42 @@ package eu.dissco.virtualcollectionservice.service;
 
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.CREATED;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.MAPPER;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimen;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenEventWithVC;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenDigitalSpecimenWithVC;
-import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenSpecimenNode;
+import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollection;
 import static eu.dissco.virtualcollectionservice.utils.TestUtils.givenVirtualCollectionEvent;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.mockStatic;
 
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import eu.dissco.virtualcollectionservice.component.BackfillProgressComponent;
+import eu.dissco.virtualcollectionservice.component.VirtualCollectionCacheComponent;
+import eu.dissco.virtualcollectionservice.domain.BackfillJob;
+import eu.dissco.virtualcollectionservice.domain.BackfillStatus;
+import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
+import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenWrapper;
+import eu.dissco.virtualcollectionservice.domain.SearchPage;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
+import eu.dissco.virtualcollectionservice.domain.VirtualCollectionEvent;
 import eu.dissco.virtualcollectionservice.property.ApplicationProperties;
+import eu.dissco.virtualcollectionservice.property.ElasticSearchProperties;
+import eu.dissco.virtualcollectionservice.repository.BackfillJobRepository;
 import eu.dissco.virtualcollectionservice.repository.ElasticSearchRepository;
+import eu.dissco.virtualcollectionservice.schema.DigitalSpecimen;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,6 +49,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 class VirtualCollectionProcessingServiceTest {
 
+  private static final String POINT_IN_TIME_ID = "pit-id";
+  private static final List<FieldValue> CURSOR = List.of(FieldValue.of("sort-value"));
   private static MockedStatic<Instant> mockedInstant;
   private static MockedStatic<Clock> mockedClock;
 
@@ -37,7 +58,12 @@ class VirtualCollectionProcessingServiceTest {
   private ElasticSearchRepository repository;
   @Mock
   private RabbitMqPublisherService publisherService;
+  @Mock
+  private VirtualCollectionCacheComponent cache;
+  @Mock
+  private BackfillJobRepository backfillJobRepository;
 
+  private final ElasticSearchProperties elasticSearchProperties = new ElasticSearchProperties();
   private VirtualCollectionProcessingService service;
 
   private static void tearDownClock() {
@@ -56,10 +82,21 @@ class VirtualCollectionProcessingServiceTest {
     mockedClock.when(Clock::systemUTC).thenReturn(clock);
   }
 
+  private static SearchPage givenSearchPage(List<DigitalSpecimen> results) {
+    return new SearchPage(results, CURSOR, POINT_IN_TIME_ID);
+  }
+
+  private static BackfillJob givenBackfillJob(List<FieldValue> cursor, long processed,
+      BackfillStatus status) {
+    return new BackfillJob(givenVirtualCollection().getId(), VirtualCollectionAction.CREATE, 0,
+        POINT_IN_TIME_ID, cursor, processed, status);
+  }
+
   @BeforeEach
   void setup() {
     service = new VirtualCollectionProcessingService(MAPPER, repository, publisherService,
-        new ApplicationProperties());
+        new ApplicationProperties(), cache, elasticSearchProperties, backfillJobRepository,
+        new BackfillProgressComponent(new SimpleMeterRegistry()));
   }
 
   @Test
@@ -67,14 +104,21 @@ class VirtualCollectionProcessingServiceTest {
     // Given
     setUpInstantNow();
     var event = givenVirtualCollectionEvent();
-    given(repository.retrieveObjects(any(), eq("digital-specimen"), any(Query.class))).willReturn(
-        List.of(givenSpecimenNode())).willReturn(List.of());
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willReturn(
+        givenSearchPage(List.of(givenDigitalSpecimen()))).willReturn(givenSearchPage(List.of()));
 
     // When
     service.handleMessage(event);
 
     // Then
-    then(publisherService).should().publishDigitalSpecimen(givenDigitalSpecimenEventWithVC());
+    then(publisherService).should()
+        .publishDigitalSpecimens(List.of(givenDigitalSpecimenEventWithVC()));
+    then(cache).should().addVirtualCollection(event.virtualCollection());
+    then(repository).should().closePointInTime(POINT_IN_TIME_ID);
+    then(backfillJobRepository).should().updateBackfillJob(
+        givenBackfillJob(CURSOR, 1, BackfillStatus.COMPLETED));
     tearDownClock();
   }
 
@@ -82,13 +126,185 @@ class VirtualCollectionProcessingServiceTest {
   void testHandleMessageVCAlreadyPresent() throws IOException {
     // Given
     var event = givenVirtualCollectionEvent();
-    given(repository.retrieveObjects(any(), eq("digital-specimen"), any(Query.class))).willReturn(
-        List.of(MAPPER.valueToTree(givenDigitalSpecimenWithVC()))).willReturn(List.of());
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willReturn(
+        givenSearchPage(List.of(givenDigitalSpecimenWithVC())))
+        .willReturn(givenSearchPage(List.of()));
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(publisherService).should()
+        .publishDigitalSpecimens(List.of(givenDigitalSpecimenEventWithVC()));
+  }
+
+  @Test
+  void testHandleMessageDelete() throws IOException {
+    // Given
+    var event = new VirtualCollectionEvent(VirtualCollectionAction.DELETE,
+        givenVirtualCollection());
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willReturn(
+        givenSearchPage(List.of(givenDigitalSpecimenWithVC())))
+        .willReturn(givenSearchPage(List.of()));
+    var expected = new DigitalSpecimenEvent(Collections.emptySet(),
+        new DigitalSpecimenWrapper(
+            "https://herbarium.bgbm.org/object/B100039428",
+            "https://doi.org/21.T11148/894b1e6cad57e921764e",
+            givenDigitalSpecimen(),
+            MAPPER.createObjectNode()),
+        Collections.emptyList(), false, false);
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(publisherService).should().publishDigitalSpecimens(List.of(expected));
+    then(cache).should().removeVirtualCollection(event.virtualCollection().getId());
+  }
+
+  @Test
+  void testHandleMessageDeleteNoRelationship() throws IOException {
+    // Given
+    var event = new VirtualCollectionEvent(VirtualCollectionAction.DELETE,
+        givenVirtualCollection());
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willReturn(
+        givenSearchPage(List.of(givenDigitalSpecimen()))).willReturn(givenSearchPage(List.of()));
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(publisherService).shouldHaveNoInteractions();
+  }
+
+  @Test
+  void testHandleMessageKeepsPointInTimeOnFailure() throws IOException {
+    // Given
+    var event = givenVirtualCollectionEvent();
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willThrow(
+        new IOException("Elastic unavailable"));
+
+    // When
+    assertThrows(IOException.class, () -> service.handleMessage(event));
+
+    // Then
+    then(repository).should(never()).closePointInTime(POINT_IN_TIME_ID);
+    then(repository).should().keepPointInTimeAlive(POINT_IN_TIME_ID, "1h");
+    then(publisherService).shouldHaveNoInteractions();
+    then(backfillJobRepository).should()
+        .updateBackfillJob(givenBackfillJob(null, 0, BackfillStatus.FAILED));
+  }
+
+  @Test
+  void testHandleMessageCountFailure() throws IOException {
+    // Given
+    var event = givenVirtualCollectionEvent();
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.countObjects(eq("digital-specimen"), any(Query.class))).willThrow(
+        new IOException("Elastic unavailable"));
+
+    // When
+    assertThrows(IOException.class, () -> service.handleMessage(event));
+
+    // Then
+    then(repository).should().keepPointInTimeAlive(POINT_IN_TIME_ID, "1h");
+    then(repository).should(never()).retrieveObjects(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void testHandleMessageSliced() throws IOException {
+    // Given
+    elasticSearchProperties.setSlices(2);
+    var event = givenVirtualCollectionEvent();
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), eq(0), any(),
+        any()))
+        .willReturn(givenSearchPage(List.of(givenDigitalSpecimen())))
+        .willReturn(givenSearchPage(List.of()));
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), eq(1), any(),
+        any()))
+        .willReturn(givenSearchPage(List.of()));
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(publisherService).should().publishDigitalSpecimens(any());
+    then(repository).should().closePointInTime(POINT_IN_TIME_ID);
+  }
+
+  @Test
+  void testHandleMessageResume() throws IOException {
+    // Given
+    var event = givenVirtualCollectionEvent();
+    given(backfillJobRepository.getBackfillJobs(event.virtualCollection().getId(),
+        VirtualCollectionAction.CREATE)).willReturn(
+        List.of(givenBackfillJob(CURSOR, 1000, BackfillStatus.RUNNING)));
+    given(repository.isPointInTimeAlive(POINT_IN_TIME_ID)).willReturn(true);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), eq(CURSOR),
+        any()))
+        .willReturn(givenSearchPage(List.of()));
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(repository).should(never()).openPointInTime(any());
+    then(backfillJobRepository).should(never()).createBackfillJobs(any());
+    then(backfillJobRepository).should()
+        .updateBackfillJob(givenBackfillJob(CURSOR, 1000, BackfillStatus.COMPLETED));
+  }
+
+  @Test
+  void testHandleMessageResumeExpiredPointInTime() throws IOException {
+    // Given
+    var event = givenVirtualCollectionEvent();
+    var newPointInTimeId = "new-pit-id";
+    given(backfillJobRepository.getBackfillJobs(event.virtualCollection().getId(),
+        VirtualCollectionAction.CREATE)).willReturn(
+        List.of(givenBackfillJob(CURSOR, 1000, BackfillStatus.FAILED)));
+    given(repository.isPointInTimeAlive(POINT_IN_TIME_ID)).willReturn(false);
+    given(repository.openPointInTime("digital-specimen")).willReturn(newPointInTimeId);
+    given(repository.retrieveObjects(any(Query.class), eq(newPointInTimeId), any(), eq(CURSOR),
+        any()))
+        .willReturn(new SearchPage(List.of(), List.of(), newPointInTimeId));
+    var expected = new BackfillJob(event.virtualCollection().getId(),
+        VirtualCollectionAction.CREATE, 0, newPointInTimeId, CURSOR, 1000, BackfillStatus.RUNNING);
+
+    // When
+    service.handleMessage(event);
+
+    // Then
+    then(backfillJobRepository).should().createBackfillJobs(List.of(expected));
+    then(repository).should().closePointInTime(newPointInTimeId);
+  }
+
+  @Test
+  void testHandleMessagePrefetchesPages() throws IOException {
+    // Given
+    elasticSearchProperties.setPrefetchPages(1);
+    var event = givenVirtualCollectionEvent();
+    given(repository.openPointInTime("digital-specimen")).willReturn(POINT_IN_TIME_ID);
+    given(repository.retrieveObjects(any(Query.class), eq(POINT_IN_TIME_ID), any(), any(),
+        any())).willReturn(givenSearchPage(List.of(givenDigitalSpecimen())))
+        .willReturn(givenSearchPage(List.of(givenDigitalSpecimen())))
+        .willReturn(givenSearchPage(List.of(givenDigitalSpecimen())))
+        .willReturn(givenSearchPage(List.of()));
 
     // When
     service.handleMessage(event);
 
     // Then
-    then(publisherService).should().publishDigitalSpecimen(givenDigitalSpecimenEventWithVC());
+    then(publisherService).should(times(3)).publishDigitalSpecimens(any());
+    then(backfillJobRepository).should()
+        .updateBackfillJob(givenBackfillJob(CURSOR, 3, BackfillStatus.COMPLETED));
   }
 }
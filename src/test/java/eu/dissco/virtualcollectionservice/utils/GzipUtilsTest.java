@@ -0,0 +1,176 @@
+package eu.dissco.virtualcollectionservice.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.Test;
+
+class GzipUtilsTest {
+
+  private static final byte[] MESSAGE = """
+      {"ods:type": "ods:DigitalSpecimen", "ods:specimenName": "Biota", "ods:livingOrPreserved": "Preserved"}"""
+      .repeat(50).getBytes(StandardCharsets.UTF_8);
+
+  private static byte[] givenJdkCompressed(byte[] message) throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    try (var gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(message);
+    }
+    return outputStream.toByteArray();
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    // When
+    var result = GzipUtils.decompress(GzipUtils.compress(MESSAGE));
+
+    // Then
+    assertThat(result).isEqualTo(MESSAGE);
+  }
+
+  @Test
+  void testCompressLevelIsResetPerMessage() throws IOException {
+    // Given
+    var defaultLevel = GzipUtils.compress(MESSAGE);
+
+    // When
+    var noCompression = GzipUtils.compress(MESSAGE, Deflater.NO_COMPRESSION);
+    var result = GzipUtils.compress(MESSAGE);
+
+    // Then
+    assertThat(noCompression).hasSizeGreaterThan(MESSAGE.length);
+    assertThat(GzipUtils.decompress(noCompression)).isEqualTo(MESSAGE);
+    assertThat(result).isEqualTo(defaultLevel);
+  }
+
+  @Test
+  void testCompressIsReadableByJdk() throws IOException {
+    // Given
+    var compressed = GzipUtils.compress(MESSAGE);
+
+    // When
+    try (var inputStream = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+
+      // Then
+      assertThat(inputStream.readAllBytes()).isEqualTo(MESSAGE);
+    }
+  }
+
+  @Test
+  void testDecompressJdkCompressed() throws IOException {
+    // When
+    var result = GzipUtils.decompress(givenJdkCompressed(MESSAGE));
+
+    // Then
+    assertThat(result).isEqualTo(MESSAGE);
+  }
+
+  @Test
+  void testConcurrentVirtualThreads() throws Exception {
+    // Given
+    var futures = new ArrayList<Future<byte[]>>();
+
+    // When
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 1000; i++) {
+        futures.add(executor.submit(() -> GzipUtils.decompress(GzipUtils.compress(MESSAGE))));
+      }
+    }
+
+    // Then
+    for (var future : futures) {
+      assertThat(future.get()).isEqualTo(MESSAGE);
+    }
+  }
+
+  @Test
+  void testIncompressibleMessage() throws IOException {
+    // Given
+    var message = new byte[100_000];
+    new Random(42).nextBytes(message);
+
+    // When
+    var result = GzipUtils.decompress(GzipUtils.compress(message));
+
+    // Then
+    assertThat(result).isEqualTo(message);
+  }
+
+  @Test
+  void testEmptyMessage() throws IOException {
+    // When
+    var result = GzipUtils.decompress(GzipUtils.compress(new byte[0]));
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  void testConcatenatedMembers() throws IOException {
+    // Given
+    var first = givenJdkCompressed(MESSAGE);
+    var second = givenJdkCompressed(MESSAGE);
+    var concatenated = new byte[first.length + second.length];
+    System.arraycopy(first, 0, concatenated, 0, first.length);
+    System.arraycopy(second, 0, concatenated, first.length, second.length);
+    var expected = new byte[MESSAGE.length * 2];
+    System.arraycopy(MESSAGE, 0, expected, 0, MESSAGE.length);
+    System.arraycopy(MESSAGE, 0, expected, MESSAGE.length, MESSAGE.length);
+
+    // When
+    var result = GzipUtils.decompress(concatenated);
+
+    // Then
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @Test
+  void testCorruptTrailer() {
+    // Given
+    var compressed = GzipUtils.compress(MESSAGE);
+    compressed[compressed.length - 6] ^= 0x01;
+
+    // When / Then
+    assertThrows(ZipException.class, () -> GzipUtils.decompress(compressed));
+  }
+
+  @Test
+  void testForgedTrailerSize() {
+    // Given
+    var compressed = GzipUtils.compress(MESSAGE);
+    compressed[compressed.length - 4] = (byte) 0xf0;
+    compressed[compressed.length - 3] = (byte) 0xff;
+    compressed[compressed.length - 2] = (byte) 0xff;
+    compressed[compressed.length - 1] = (byte) 0x7f;
+
+    // When / Then
+    assertThrows(ZipException.class, () -> GzipUtils.decompress(compressed));
+  }
+
+  @Test
+  void testIsPlausibleSize() {
+    // When / Then
+    assertThat(GzipUtils.isPlausibleSize(1032, 1)).isTrue();
+    assertThat(GzipUtils.isPlausibleSize(1033, 1)).isFalse();
+    assertThat(GzipUtils.isPlausibleSize(GzipUtils.MAX_PRESIZED_SIZE + 1L, Integer.MAX_VALUE))
+        .isFalse();
+  }
+
+  @Test
+  void testNotGzip() {
+    // When / Then
+    assertThrows(ZipException.class, () -> GzipUtils.decompress(MESSAGE));
+  }
+}
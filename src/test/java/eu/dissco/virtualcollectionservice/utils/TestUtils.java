@@ -1,10 +1,13 @@
 package eu.dissco.virtualcollectionservice.utils;
 
+import static eu.dissco.virtualcollectionservice.component.SpecimenFilterCompiler.compileFilter;
+
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.dissco.virtualcollectionservice.domain.CompiledVirtualCollection;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenEvent;
 import eu.dissco.virtualcollectionservice.domain.DigitalSpecimenWrapper;
 import eu.dissco.virtualcollectionservice.domain.VirtualCollectionAction;
@@ -67,6 +70,12 @@ public class TestUtils {
         .withOdsHasTargetDigitalObjectFilter(givenTargetDigitalObjectFilter());
   }
 
+  public static CompiledVirtualCollection givenCompiledVirtualCollection() {
+    var virtualCollection = givenVirtualCollection();
+    return new CompiledVirtualCollection(virtualCollection,
+        compileFilter(virtualCollection.getOdsHasTargetDigitalObjectFilter()));
+  }
+
   public static TargetDigitalObjectFilter givenTargetDigitalObjectFilter() {
     return new TargetDigitalObjectFilter()
         .withOdsPredicateType(OdsPredicateType.EQUALS)
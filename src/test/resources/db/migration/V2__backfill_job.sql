@@ -0,0 +1,13 @@
+create table backfill_job
+(
+    virtual_collection_id text                     not null,
+    action                text                     not null,
+    slice                 integer                  not null,
+    point_in_time_id      text                     not null,
+    cursor                jsonb,
+    processed             bigint  default 0        not null,
+    status                text                     not null,
+    created               timestamp with time zone not null,
+    modified              timestamp with time zone not null,
+    primary key (virtual_collection_id, action, slice)
+);